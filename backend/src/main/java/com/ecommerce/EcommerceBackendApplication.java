@@ -2,8 +2,12 @@ package com.ecommerce;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@PropertySource("classpath:threads.properties")
 public class EcommerceBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(EcommerceBackendApplication.class, args);
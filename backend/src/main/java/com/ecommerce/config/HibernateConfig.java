@@ -0,0 +1,46 @@
+package com.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+@Configuration
+@PropertySource("classpath:database.properties")
+public class HibernateConfig {
+
+    @Value("${app.jpa.batch-size:50}")
+    private int batchSize;
+
+    // Group inserts/updates per entity into JDBC batches; needs sequence-generated ids to take effect
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+            properties.putIfAbsent("hibernate.order_updates", true);
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", true);
+        };
+    }
+
+    // Connector/J ignores a positive fetch size and reads the whole result into memory unless cursor fetch is on;
+    // with it, the streamed exports read HINT_FETCH_SIZE rows at a time from a server-side cursor. Postgres honours
+    // the fetch size inside a transaction and H2 as is, so they need nothing. An explicit
+    // spring.datasource.hikari.data-source-properties.useCursorFetch wins.
+    @Bean
+    public static BeanPostProcessor mysqlCursorFetch() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && dataSource.getJdbcUrl() != null
+                        && dataSource.getJdbcUrl().startsWith("jdbc:mysql:")) {
+                    dataSource.getDataSourceProperties().putIfAbsent("useCursorFetch", "true");
+                }
+                return bean;
+            }
+        };
+    }
+}
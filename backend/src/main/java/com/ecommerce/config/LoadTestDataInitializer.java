@@ -0,0 +1,84 @@
+package com.ecommerce.config;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeds the user population and catalog the load generator works against. Users are named
+// loadtest-<n>@example.com; products are padded up to app.loadtest.products and every product gets
+// enough stock that checkouts never fail on it. Runs after DataInitializer and before the search
+// and facet indexes are built.
+@Component
+@Profile("loadtest")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LoadTestDataInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestDataInitializer.class);
+
+    private static final String[] WORDS = {
+            "wireless", "pro", "ultra", "compact", "smart", "classic", "premium", "sport", "travel", "studio",
+            "organic", "cotton", "leather", "steel", "carbon", "digital", "portable", "vintage", "eco", "max",
+            "headphones", "laptop", "camera", "jacket", "sneakers", "watch", "backpack", "speaker", "lamp", "bottle"
+    };
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.loadtest.users:1000}")
+    private int userCount;
+
+    @Value("${app.loadtest.products:1000}")
+    private int productCount;
+
+    @Value("${app.loadtest.stock:1000000000}")
+    private int stock;
+
+    @Override
+    public void run(String... args) {
+        logger.warn("Load test profile is active: requests are authenticated from the X-Load-Test-User header");
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            String email = "loadtest-" + i + "@example.com";
+            if (!userRepository.existsByEmail(email)) {
+                users.add(new User("Load Test User " + i, email, null));
+            }
+        }
+        userRepository.saveAll(users);
+
+        List<Product> products = productRepository.findAll();
+        products.forEach(product -> product.setStockQuantity(stock));
+        Random random = new Random(42);
+        for (int i = products.size(); i < productCount; i++) {
+            String name = word(random) + " " + word(random) + " " + word(random);
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            products.add(new Product(name, word(random) + " " + word(random), price, stock, null,
+                    "Category " + random.nextInt(20), "Brand " + random.nextInt(50)));
+        }
+        productRepository.saveAll(products);
+
+        logger.info("Load test data ready: {} new users, {} products", users.size(), products.size());
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
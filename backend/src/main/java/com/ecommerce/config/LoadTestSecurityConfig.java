@@ -0,0 +1,39 @@
+package com.ecommerce.config;
+
+import com.ecommerce.security.LoadTestAuthenticationFilter;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+// The X-Load-Test-User header lets any caller act as any user, so the filter only exists under the "loadtest"
+// profile and only against an in-memory database. A deployed configuration points at a real database, so the
+// profile leaking into one stops startup instead of opening the header up.
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+    @Bean
+    public LoadTestAuthenticationFilter loadTestAuthenticationFilter(DataSource dataSource) {
+        return create(dataSource);
+    }
+
+    // SecurityConfig puts the filter in the security chain; Boot must not also register it for every request
+    @Bean
+    public FilterRegistrationBean<LoadTestAuthenticationFilter> loadTestAuthenticationFilterRegistration(
+            LoadTestAuthenticationFilter filter) {
+        FilterRegistrationBean<LoadTestAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    static LoadTestAuthenticationFilter create(DataSource dataSource) {
+        if (!EmbeddedDatabaseConnection.isEmbedded(dataSource)) {
+            throw new IllegalStateException("The loadtest profile only runs against an in-memory database");
+        }
+        return new LoadTestAuthenticationFilter();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// HTTP, Hikari, JVM and Spring Data repository metrics come from actuator; this adds a timer per public
+// service method, tagged only by service, method and outcome to keep cardinality fixed
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+
+    // app.metrics.service-timers=false removes the timing advice, e.g. to measure what it costs per call
+    @Configuration
+    @Aspect
+    @ConditionalOnProperty(name = "app.metrics.service-timers", havingValue = "true", matchIfMissing = true)
+    static class ServiceTimers {
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        // Timers are resolved once per method, so a call costs a map lookup and a record. Spring AOP creates a new
+        // join point, static part included, for every call, so neither can be the key.
+        private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+        @Around("execution(public * com.ecommerce.service.ProductService.*(..))"
+                + " || execution(public * com.ecommerce.service.CartService.*(..))"
+                + " || execution(public * com.ecommerce.service.OrderService.*(..))"
+                + " || execution(public * com.ecommerce.service.PaymentService.*(..))")
+        public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+            Timer[] outcomes = timers.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                    this::registerTimers);
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = joinPoint.proceed();
+                success = true;
+                return result;
+            } finally {
+                outcomes[success ? 0 : 1].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer[] registerTimers(Method method) {
+            String service = method.getDeclaringClass().getSimpleName();
+            return new Timer[] {
+                    timer(service, method.getName(), "success"),
+                    timer(service, method.getName(), "error")
+            };
+        }
+
+        private Timer timer(String service, String method, String outcome) {
+            return Timer.builder("app.service.calls")
+                    .description("Public service method calls")
+                    .tag("service", service)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
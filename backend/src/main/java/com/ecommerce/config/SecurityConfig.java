@@ -1,15 +1,23 @@
 package com.ecommerce.config;
 
+import com.ecommerce.security.CookieOAuth2AuthorizationRequestRepository;
 import com.ecommerce.security.CustomOAuth2UserService;
+import com.ecommerce.security.LoadTestAuthenticationFilter;
 import com.ecommerce.security.OAuth2AuthenticationSuccessHandler;
 import com.ecommerce.security.OAuth2AuthenticationFailureHandler;
+import com.ecommerce.security.TokenAuthenticationFilter;
+import com.ecommerce.security.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.HttpStatusReturningLogoutSuccessHandler;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -29,6 +37,13 @@ public class SecurityConfig {
     @Autowired
     private OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
 
+    @Autowired
+    private TokenService tokenService;
+
+    // Only defined under the "loadtest" profile, see LoadTestSecurityConfig
+    @Autowired
+    private ObjectProvider<LoadTestAuthenticationFilter> loadTestAuthenticationFilter;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -38,6 +53,11 @@ public class SecurityConfig {
             .formLogin(form -> form.disable())
             .httpBasic(basic -> basic.disable())
             .authorizeHttpRequests(authz -> authz
+                // Operator endpoints, ahead of the catch-all below; admins are listed in app.security.admin-emails
+                .requestMatchers("/api/payments/webhook/replay").hasRole("ADMIN")
+                .requestMatchers("/api/products/bulk", "/api/products/export").hasRole("ADMIN")
+                .requestMatchers("/api/orders/export", "/api/orders/events", "/api/orders/*/events",
+                        "/api/orders/dashboard", "/api/orders/status/*/queue").hasRole("ADMIN")
                 .requestMatchers("/", "/error", "/favicon.ico", "/**").permitAll()
                 .requestMatchers("/api/auth/**", "/oauth2/**").permitAll()
                 .requestMatchers("/api/products/**").permitAll()
@@ -53,6 +73,25 @@ public class SecurityConfig {
                 .failureHandler(oAuth2AuthenticationFailureHandler)
             );
 
+        // app.auth.mode=token: no HTTP session at all. The login state lives in a signed cookie that any node can
+        // verify, and the OAuth2 authorization request travels in a signed cookie as well
+        if (tokenService.isTokenMode()) {
+            http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .oauth2Login(oauth2 -> oauth2
+                    .authorizationEndpoint(authorization -> authorization
+                        .authorizationRequestRepository(new CookieOAuth2AuthorizationRequestRepository(tokenService))))
+                .logout(logout -> logout
+                    .logoutUrl("/api/auth/logout")
+                    .deleteCookies(tokenService.getCookieName())
+                    .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler(HttpStatus.OK)))
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), AnonymousAuthenticationFilter.class);
+        }
+
+        // Lets the load generator pick the acting user per request
+        loadTestAuthenticationFilter.ifAvailable(filter ->
+                http.addFilterBefore(filter, AnonymousAuthenticationFilter.class));
+
         // Allow H2 console
         http.headers(headers -> headers.frameOptions().sameOrigin());
 
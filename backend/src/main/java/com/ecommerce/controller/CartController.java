@@ -1,5 +1,7 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CartOperation;
+import com.ecommerce.dto.CartView;
 import com.ecommerce.model.Cart;
 import com.ecommerce.service.CartService;
 import com.ecommerce.security.UserPrincipal;
@@ -10,6 +12,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -45,6 +48,22 @@ public class CartController {
         }
     }
 
+    @GetMapping("/{userId}/summary")
+    public ResponseEntity<CartView> getCartSummary(@PathVariable Long userId) {
+        try {
+            // Verify the user is accessing their own cart
+            Long currentUserId = getCurrentUserId();
+            if (!currentUserId.equals(userId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            CartView cart = cartService.getCartView(userId);
+            return ResponseEntity.ok(cart);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/{userId}/items")
     public ResponseEntity<Cart> addItemToCart(
             @PathVariable Long userId,
@@ -88,6 +107,25 @@ public class CartController {
         }
     }
 
+    // Applies a list of add/update/remove operations at once, e.g. to merge a guest cart after login
+    @PostMapping("/{userId}/items/batch")
+    public ResponseEntity<Cart> applyCartOperations(
+            @PathVariable Long userId,
+            @RequestBody List<CartOperation> operations) {
+        try {
+            // Verify the user is accessing their own cart
+            Long currentUserId = getCurrentUserId();
+            if (!currentUserId.equals(userId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            Cart cart = cartService.applyOperations(userId, operations);
+            return ResponseEntity.ok(cart);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{userId}/items/{productId}")
     public ResponseEntity<Cart> removeItemFromCart(
             @PathVariable Long userId,
@@ -148,6 +186,15 @@ public class CartController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
 
- 
\ No newline at end of file
+    @PostMapping("/current/items/batch")
+    public ResponseEntity<Cart> applyCurrentUserCartOperations(@RequestBody List<CartOperation> operations) {
+        try {
+            Long userId = getCurrentUserId();
+            Cart cart = cartService.applyOperations(userId, operations);
+            return ResponseEntity.ok(cart);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
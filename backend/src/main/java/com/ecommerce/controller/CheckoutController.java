@@ -0,0 +1,85 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.CheckoutStatus;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.PaymentOutboxStatus;
+import com.ecommerce.security.UserPrincipal;
+import com.ecommerce.service.CheckoutService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentUnavailableException;
+import com.stripe.exception.StripeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Map;
+
+// Replaces the POST /api/orders + POST /api/payments/create-payment-intent sequence with one call that
+// returns as soon as the order is stored; the client then polls the order's checkout until it has a clientSecret
+@RestController
+@RequestMapping("/api/checkout")
+@CrossOrigin(origins = {"http://localhost:3000"})
+public class CheckoutController {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private OrderService orderService;
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+            return userPrincipal.getId();
+        }
+        throw new RuntimeException("User not authenticated");
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> checkout(@RequestBody Map<String, Object> request) {
+        try {
+            Long userId = getCurrentUserId();
+            String shippingAddress = request.get("shippingAddress").toString();
+            String billingAddress = request.get("billingAddress").toString();
+
+            Order order = checkoutService.checkout(userId, shippingAddress, billingAddress);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/checkout/" + order.getId()))
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("orderId", order.getId(), "stage", PaymentOutboxStatus.PENDING,
+                            "totalAmount", order.getTotalAmount()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<?> getCheckoutStatus(@PathVariable Long orderId) {
+        try {
+            // Verify the user is polling their own order
+            Long currentUserId = getCurrentUserId();
+            if (!currentUserId.equals(orderService.getOrderById(orderId).getUser().getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            CheckoutStatus status = checkoutService.getStatus(orderId);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (status.stage() == PaymentOutboxStatus.PENDING || status.stage() == PaymentOutboxStatus.PROCESSING) {
+                response.header(HttpHeaders.RETRY_AFTER, "1");
+            }
+            return response.body(status);
+        } catch (StripeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", e.getMessage()));
+        } catch (PaymentUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,15 +1,31 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.OrderSummary;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.OrderStatusEvent;
+import com.ecommerce.service.OrderExportService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductBulkService.BulkFormat;
+import com.ecommerce.security.UserPrincipal;
+import com.ecommerce.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +37,18 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+            return userPrincipal.getId();
+        }
+        throw new RuntimeException("User not authenticated");
+    }
+
     @PostMapping
     public ResponseEntity<Order> createOrder(@RequestBody Map<String, Object> request) {
         try {
@@ -55,6 +83,22 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<OrderSummary>> getOrderSummariesByUserId(@PathVariable Long userId) {
+        try {
+            // Verify the user is accessing their own orders
+            Long currentUserId = getCurrentUserId();
+            if (!currentUserId.equals(userId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            List<OrderSummary> orders = orderService.getOrderSummariesByUserId(userId);
+            return ResponseEntity.ok(orders);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/user/{userId}/paginated")
     public ResponseEntity<Page<Order>> getOrdersByUserIdPaginated(
             @PathVariable Long userId,
@@ -69,6 +113,25 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<Map<String, Object>> scrollOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Window<Order> orders = orderService.scrollOrdersByUserId(userId, cursor, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", orders.getContent());
+            response.put("size", orders.size());
+            response.put("hasNext", orders.hasNext());
+            response.put("nextCursor", KeysetCursor.nextCursor(orders));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable Long id,
@@ -103,9 +166,86 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Newest first, a page at a time; the whole table is never loaded
+    @GetMapping("/paginated")
+    public ResponseEntity<Page<Order>> getAllOrdersPaginated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Page<Order> orders = orderService.getAllOrders(newestFirst(page, size));
+        return ResponseEntity.ok(orders);
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable OrderStatus status) {
         List<Order> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(orders);
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/status/{status}/paginated")
+    public ResponseEntity<Page<Order>> getOrdersByStatusPaginated(
+            @PathVariable OrderStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Page<Order> orders = orderService.getOrdersByStatus(status, newestFirst(page, size));
+        return ResponseEntity.ok(orders);
+    }
+
+    // Dashboard figures from the incrementally maintained status view; no orders are read
+    @GetMapping("/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboard() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("counts", orderService.getStatusCounts());
+        response.put("lastEventId", orderService.getLastStatusEventId());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/status/{status}/queue")
+    public ResponseEntity<List<Order>> getOrderQueue(
+            @PathVariable OrderStatus status,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<Order> orders = orderService.getOrderQueue(status, Math.max(1, Math.min(limit, 500)));
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Tails the status event log; pass the returned lastEventId as 'after' to continue
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getStatusEvents(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<OrderStatusEvent> events = orderService.getStatusEventsAfter(after, Math.max(1, Math.min(limit, 1000)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("events", events);
+        response.put("lastEventId", events.isEmpty() ? after : events.get(events.size() - 1).getId());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}/events")
+    public ResponseEntity<List<OrderStatusEvent>> getStatusHistory(@PathVariable Long id) {
+        List<OrderStatusEvent> events = orderService.getStatusHistory(id);
+        return ResponseEntity.ok(events);
+    }
+
+    // Streams every matching order; from and to are ISO date-times, from inclusive and to exclusive
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        BulkFormat bulkFormat = BulkFormat.fromName(format);
+        StreamingResponseBody body = out -> orderExportService.exportOrders(out, bulkFormat, status, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(bulkFormat.getContentType()))
+                .body(body);
+    }
+
+    private static Pageable newestFirst(int page, int size) {
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 500)),
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce.controller;
 import com.ecommerce.model.Order;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.PaymentUnavailableException;
+import com.ecommerce.service.StripeWebhookService;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Event;
@@ -13,6 +15,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,6 +30,9 @@ public class PaymentController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private StripeWebhookService stripeWebhookService;
+
     @Value("${stripe.webhook.secret:}")
     private String webhookSecret;
 
@@ -46,6 +53,9 @@ public class PaymentController {
         } catch (StripeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (PaymentUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
@@ -64,6 +74,9 @@ public class PaymentController {
         } catch (StripeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (PaymentUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -77,6 +90,9 @@ public class PaymentController {
         } catch (StripeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
+        } catch (PaymentUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -90,38 +106,25 @@ public class PaymentController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Webhook error: " + e.getMessage());
         }
 
-        // Handle the event
-        switch (event.getType()) {
-            case "payment_intent.succeeded":
-                handlePaymentIntentSucceeded(event);
-                break;
-            case "payment_intent.payment_failed":
-                handlePaymentIntentFailed(event);
-                break;
-            default:
-                System.out.println("Unhandled event type: " + event.getType());
-        }
-
-        return ResponseEntity.ok("Success");
-    }
-
-    private void handlePaymentIntentSucceeded(Event event) {
-        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
-        if (paymentIntent != null) {
-            String paymentIntentId = paymentIntent.getId();
-            orderService.getOrderByPaymentIntentId(paymentIntentId).ifPresent(order -> {
-                orderService.updatePaymentStatus(order.getId(), paymentIntentId, "succeeded");
-            });
-        }
+        // Store the event and acknowledge; processing happens on the webhook workers
+        boolean accepted = stripeWebhookService.receive(event, payload);
+        return ResponseEntity.ok(accepted ? "Success" : "Duplicate");
     }
 
-    private void handlePaymentIntentFailed(Event event) {
-        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
-        if (paymentIntent != null) {
-            String paymentIntentId = paymentIntent.getId();
-            orderService.getOrderByPaymentIntentId(paymentIntentId).ifPresent(order -> {
-                orderService.updatePaymentStatus(order.getId(), paymentIntentId, "failed");
-            });
+    @PostMapping("/webhook/replay")
+    public ResponseEntity<Map<String, Object>> replayWebhooks(@RequestBody Map<String, Object> request) {
+        try {
+            int replayed;
+            if (request.get("eventIds") instanceof List<?> eventIds) {
+                replayed = stripeWebhookService.replay(eventIds.stream().map(Object::toString).toList());
+            } else {
+                LocalDateTime from = LocalDateTime.parse(request.get("from").toString());
+                LocalDateTime to = LocalDateTime.parse(request.get("to").toString());
+                replayed = stripeWebhookService.replay(from, to);
+            }
+            return ResponseEntity.ok(Map.of("replayed", replayed));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide eventIds or a from/to receivedAt range"));
         }
     }
-} 
\ No newline at end of file
+}
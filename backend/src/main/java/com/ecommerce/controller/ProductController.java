@@ -1,16 +1,31 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.FacetedProducts;
+import com.ecommerce.dto.ProductSummary;
 import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductBulkService;
+import com.ecommerce.service.ProductBulkService.BulkFormat;
+import com.ecommerce.service.ProductBulkService.BulkImportResult;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.util.KeysetCursor;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -20,6 +35,9 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductBulkService productBulkService;
+
     @GetMapping
     public ResponseEntity<Page<Product>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
@@ -36,6 +54,42 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<Page<ProductSummary>> getProductSummaries(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        Sort sort = sortDir.equalsIgnoreCase("desc") ?
+            Sort.by(sortBy).descending() :
+            Sort.by(sortBy).ascending();
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+        Page<ProductSummary> products = productService.getProductSummaries(pageable);
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<Map<String, Object>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+        try {
+            Window<Product> window = productService.scrollProducts(cursor, size, sortBy, sortDir);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", window.getContent());
+            response.put("size", window.size());
+            response.put("hasNext", window.hasNext());
+            response.put("nextCursor", KeysetCursor.nextCursor(window));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         return productService.getProductById(id)
@@ -66,6 +120,25 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedProducts> getFacetedProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        try {
+            FacetedProducts products = productService.getFacetedProducts(category, brand, minPrice, maxPrice, inStock, pageable);
+            return ResponseEntity.ok(products);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getAllCategories() {
         List<String> categories = productService.getAllCategories();
@@ -105,4 +178,20 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.ok().build();
     }
-} 
\ No newline at end of file
+
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<BulkImportResult> importProducts(HttpServletRequest request) throws IOException {
+        BulkFormat format = BulkFormat.fromContentType(request.getContentType());
+        BulkImportResult result = productBulkService.importProducts(request.getInputStream(), format);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        BulkFormat bulkFormat = BulkFormat.fromName(format);
+        StreamingResponseBody body = out -> productBulkService.exportProducts(out, bulkFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(bulkFormat.getContentType()))
+                .body(body);
+    }
+}
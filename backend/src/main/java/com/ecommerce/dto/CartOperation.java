@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// One entry of a batch cart request, e.g. {"op": "add", "productId": 12, "quantity": 2}.
+// add and update behave like the single-item endpoints; remove ignores quantity.
+public record CartOperation(Type op, Long productId, Integer quantity) {
+
+    public enum Type {
+        @JsonProperty("add") ADD,
+        @JsonProperty("update") UPDATE,
+        @JsonProperty("remove") REMOVE
+    }
+}
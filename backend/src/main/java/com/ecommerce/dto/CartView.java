@@ -0,0 +1,10 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CartView(Long id, List<CartLine> items, BigDecimal total, int totalItems) {
+
+    public record CartLine(Long productId, String productName, BigDecimal price, Integer quantity, BigDecimal subtotal) {
+    }
+}
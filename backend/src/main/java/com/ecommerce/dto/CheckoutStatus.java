@@ -0,0 +1,10 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.PaymentOutboxStatus;
+
+// What a client polls for after POST /api/checkout. stage is PENDING or PROCESSING until the PaymentIntent
+// exists, then COMPLETED with clientSecret set; FAILED means the order was cancelled and error says why.
+public record CheckoutStatus(Long orderId, PaymentOutboxStatus stage, OrderStatus orderStatus,
+                             String paymentIntentId, String clientSecret, String error) {
+}
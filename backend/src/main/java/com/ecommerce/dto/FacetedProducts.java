@@ -0,0 +1,13 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Product;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+public record FacetedProducts(
+        Page<Product> products,
+        Map<String, Long> categories,
+        Map<String, Long> brands,
+        long inStock) {
+}
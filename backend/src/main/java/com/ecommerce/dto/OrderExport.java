@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One NDJSON line of the order export
+public record OrderExport(
+        Long id,
+        Long userId,
+        String userEmail,
+        OrderStatus status,
+        String paymentStatus,
+        String paymentIntentId,
+        BigDecimal totalAmount,
+        String shippingAddress,
+        String billingAddress,
+        LocalDateTime createdAt,
+        List<Line> items) {
+
+    public record Line(Long productId, String productName, Integer quantity, BigDecimal unitPrice) {
+    }
+}
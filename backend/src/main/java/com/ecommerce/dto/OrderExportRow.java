@@ -0,0 +1,24 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of the order/user/order-item join streamed by the order export; item columns are null for orders without items
+public record OrderExportRow(
+        Long orderId,
+        Long userId,
+        String userEmail,
+        OrderStatus status,
+        String paymentStatus,
+        String paymentIntentId,
+        BigDecimal totalAmount,
+        String shippingAddress,
+        String billingAddress,
+        LocalDateTime createdAt,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal unitPrice) {
+}
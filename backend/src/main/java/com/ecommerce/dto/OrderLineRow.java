@@ -0,0 +1,23 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of the order/order-item join used to assemble OrderSummary; line and product columns are null for orders
+// without items
+public record OrderLineRow(
+        Long orderId,
+        BigDecimal totalAmount,
+        OrderStatus status,
+        String paymentStatus,
+        LocalDateTime createdAt,
+        String shippingAddress,
+        Long lineId,
+        Long productId,
+        String productName,
+        String productImageUrl,
+        Integer quantity,
+        BigDecimal unitPrice) {
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderSummary(
+        Long id,
+        BigDecimal totalAmount,
+        OrderStatus status,
+        String paymentStatus,
+        LocalDateTime createdAt,
+        String shippingAddress,
+        List<OrderLine> items) {
+
+    public record OrderLine(Long id, Long productId, String productName, String productImageUrl, Integer quantity,
+                            BigDecimal unitPrice) {
+    }
+}
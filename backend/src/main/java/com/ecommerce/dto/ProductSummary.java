@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// Product list row: everything the listing shows, without the description
+public record ProductSummary(
+        Long id,
+        String name,
+        BigDecimal price,
+        Integer stockQuantity,
+        String imageUrl,
+        String category,
+        String brand) {
+}
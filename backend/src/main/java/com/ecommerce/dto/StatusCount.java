@@ -0,0 +1,6 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+
+public record StatusCount(OrderStatus status, long count) {
+}
@@ -1,10 +1,12 @@
 package com.ecommerce.model;
 
+import com.ecommerce.util.Money;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Entity
@@ -28,6 +30,22 @@ public class Cart {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Running totals over items, summed once on first read (e.g. after loading) and then adjusted by addItem,
+    // removeItem and CartItem.setQuantity. Prices are taken when a line is counted, so a price change in the
+    // same persistence context is only picked up after resetAggregates.
+    @Transient
+    private boolean aggregated;
+
+    @Transient
+    private long totalMinorUnits;
+
+    @Transient
+    private int totalItems;
+
+    // BigDecimal form of totalMinorUnits, built once per change rather than on every serialization
+    @Transient
+    private BigDecimal total;
+
     // Constructors
     public Cart() {
         this.items = new ArrayList<>();
@@ -40,23 +58,85 @@ public class Cart {
         this.user = user;
     }
 
-    // Calculated field for total
+    // Calculated field for total; an empty cart reports 0, otherwise the amount has two decimals
     public BigDecimal getTotal() {
-        if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
+        aggregate();
+        if (total == null) {
+            total = getItemList().isEmpty() ? BigDecimal.ZERO : Money.fromMinorUnits(totalMinorUnits);
         }
-        return items.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return total;
+    }
+
+    @JsonIgnore
+    public long getTotalMinorUnits() {
+        aggregate();
+        return totalMinorUnits;
     }
 
     public int getTotalItems() {
-        if (items == null || items.isEmpty()) {
-            return 0;
+        aggregate();
+        return totalItems;
+    }
+
+    public void addItem(CartItem item) {
+        getItemList().add(item);
+        if (aggregated) {
+            totalMinorUnits += item.getSubtotalMinorUnits();
+            totalItems += item.getQuantity();
+            total = null;
+        }
+    }
+
+    public void removeItem(CartItem item) {
+        if (getItemList().remove(item) && aggregated) {
+            totalMinorUnits -= item.getSubtotalMinorUnits();
+            totalItems -= item.getQuantity();
+            total = null;
         }
-        return items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+    }
+
+    public void resetAggregates() {
+        aggregated = false;
+        total = null;
+    }
+
+    void quantityChanged(CartItem item, int previousQuantity) {
+        if (!aggregated) {
+            return;
+        }
+        if (item.getProduct() == null) {
+            resetAggregates();
+            return;
+        }
+        int delta = item.getQuantity() - previousQuantity;
+        totalMinorUnits += item.getProduct().getPriceMinorUnits() * delta;
+        totalItems += delta;
+        total = null;
+    }
+
+    private void aggregate() {
+        if (aggregated) {
+            return;
+        }
+        long sum = 0;
+        int count = 0;
+        List<CartItem> lines = getItemList();
+        for (int i = 0, size = lines.size(); i < size; i++) {
+            CartItem item = lines.get(i);
+            sum += item.getSubtotalMinorUnits();
+            count += item.getQuantity();
+        }
+        totalMinorUnits = sum;
+        totalItems = count;
+        total = null;
+        aggregated = true;
+    }
+
+    private List<CartItem> getItemList() {
+        if (items == null) {
+            items = new ArrayList<>();
+        }
+        return items;
     }
 
     // Getters and Setters
@@ -66,13 +146,14 @@ public class Cart {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
-    public List<CartItem> getItems() { 
-        if (items == null) {
-            items = new ArrayList<>();
-        }
-        return items; 
+    // Read-only view; change lines through addItem and removeItem so the totals stay current
+    public List<CartItem> getItems() {
+        return Collections.unmodifiableList(getItemList());
+    }
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+        resetAggregates();
     }
-    public void setItems(List<CartItem> items) { this.items = items; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
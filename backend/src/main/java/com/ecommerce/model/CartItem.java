@@ -1,14 +1,18 @@
 package com.ecommerce.model;
 
+import com.ecommerce.util.Money;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"})
+})
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -34,7 +38,12 @@ public class CartItem {
 
     // Calculated field for subtotal
     public BigDecimal getSubtotal() {
-        return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        return Money.fromMinorUnits(getSubtotalMinorUnits());
+    }
+
+    @JsonIgnore
+    public long getSubtotalMinorUnits() {
+        return product.getPriceMinorUnits() * quantity;
     }
 
     // Getters and Setters
@@ -45,8 +54,20 @@ public class CartItem {
     public void setCart(Cart cart) { this.cart = cart; }
 
     public Product getProduct() { return product; }
-    public void setProduct(Product product) { this.product = product; }
+    public void setProduct(Product product) {
+        this.product = product;
+        if (cart != null) {
+            cart.resetAggregates();
+        }
+    }
 
     public Integer getQuantity() { return quantity; }
-    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    // Keeps the owning cart's running totals in step
+    public void setQuantity(Integer quantity) {
+        Integer previous = this.quantity;
+        this.quantity = quantity;
+        if (cart != null && previous != null) {
+            cart.quantityChanged(this, previous);
+        }
+    }
 } 
\ No newline at end of file
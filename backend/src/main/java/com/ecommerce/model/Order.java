@@ -6,10 +6,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_payment_intent_id", columnList = "payment_intent_id"),
+    @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_orders_user_created_at", columnList = "user_id, created_at")
+})
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -30,6 +35,10 @@ public class Order {
     private String paymentIntentId; // Stripe payment intent ID
     private String paymentStatus;
 
+    // Read and changed only through OrderRepository, so saving a stale Order cannot undo an advance
+    @Column(name = "payment_key_generation", nullable = false, insertable = false, updatable = false)
+    private int paymentKeyGeneration;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
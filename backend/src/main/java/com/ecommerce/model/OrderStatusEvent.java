@@ -0,0 +1,65 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Append-only record of an order's status or payment status changing; fromStatus is null when the order was created.
+// Rows are never updated. Ids follow insert order, not commit order, so tail through OrderService.getStatusEventsAfter.
+@Entity
+@Table(name = "order_status_events", indexes = {
+    @Index(name = "idx_order_status_events_order_id", columnList = "order_id")
+})
+public class OrderStatusEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status")
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false)
+    private OrderStatus toStatus;
+
+    @Column(name = "payment_status")
+    private String paymentStatus;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public OrderStatusEvent() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public OrderStatusEvent(Long orderId, OrderStatus fromStatus, OrderStatus toStatus, String paymentStatus) {
+        this();
+        this.orderId = orderId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.paymentStatus = paymentStatus;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public OrderStatus getFromStatus() { return fromStatus; }
+    public void setFromStatus(OrderStatus fromStatus) { this.fromStatus = fromStatus; }
+
+    public OrderStatus getToStatus() { return toStatus; }
+    public void setToStatus(OrderStatus toStatus) { this.toStatus = toStatus; }
+
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
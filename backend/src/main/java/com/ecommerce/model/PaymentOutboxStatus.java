@@ -0,0 +1,8 @@
+package com.ecommerce.model;
+
+public enum PaymentOutboxStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
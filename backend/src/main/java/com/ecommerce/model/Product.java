@@ -1,14 +1,20 @@
 package com.ecommerce.model;
 
+import com.ecommerce.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_category", columnList = "category"),
+    @Index(name = "idx_products_brand", columnList = "brand")
+})
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,6 +26,12 @@ public class Product {
     @Column(nullable = false)
     private BigDecimal price;
 
+    // price in cents together with the price it was derived from. One immutable object, so instances shared through
+    // the catalog cache publish it safely; a price Hibernate wrote through the field without a load (merge) is
+    // noticed because it is a different object.
+    @Transient
+    private MinorUnits priceMinorUnits;
+
     @Column(nullable = false)
     private Integer stockQuantity;
 
@@ -64,7 +76,20 @@ public class Product {
     public void setDescription(String description) { this.description = description; }
 
     public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+        this.priceMinorUnits = MinorUnits.of(price);
+    }
+
+    @JsonIgnore
+    public long getPriceMinorUnits() {
+        MinorUnits minorUnits = priceMinorUnits;
+        if (minorUnits == null || minorUnits.price() != price) {
+            minorUnits = MinorUnits.of(price);
+            priceMinorUnits = minorUnits;
+        }
+        return minorUnits.cents();
+    }
 
     public Integer getStockQuantity() { return stockQuantity; }
     public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
@@ -88,4 +113,16 @@ public class Product {
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
     }
+
+    // Runs after a load and after a refresh, both of which write price through the field
+    @PostLoad
+    void postLoad() {
+        this.priceMinorUnits = MinorUnits.of(price);
+    }
+
+    private record MinorUnits(BigDecimal price, long cents) {
+        static MinorUnits of(BigDecimal price) {
+            return price != null ? new MinorUnits(price, Money.toMinorUnits(price)) : null;
+        }
+    }
 } 
\ No newline at end of file
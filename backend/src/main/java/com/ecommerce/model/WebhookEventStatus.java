@@ -0,0 +1,8 @@
+package com.ecommerce.model;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
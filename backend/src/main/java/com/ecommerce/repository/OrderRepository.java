@@ -1,15 +1,32 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.OrderExportRow;
+import com.ecommerce.dto.OrderLineRow;
+import com.ecommerce.dto.StatusCount;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderStatus;
 import com.ecommerce.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -17,5 +34,45 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     Page<Order> findByUser(User user, Pageable pageable);
     List<Order> findByStatus(OrderStatus status);
+    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     Optional<Order> findByPaymentIntentId(String paymentIntentId);
-} 
\ No newline at end of file
+    Window<Order> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
+    // Row lock held until the transaction ends, so concurrent status changes to one order are applied one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT o.paymentKeyGeneration FROM Order o WHERE o.id = :id")
+    Optional<Integer> findPaymentKeyGeneration(@Param("id") Long id);
+
+    // Conditional, so creates that failed concurrently under the same key move the order on by one generation only
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentKeyGeneration = :generation + 1 WHERE o.id = :id AND o.paymentKeyGeneration = :generation")
+    int advancePaymentKeyGeneration(@Param("id") Long id, @Param("generation") int generation);
+
+    @Query("SELECT new com.ecommerce.dto.OrderLineRow(o.id, o.totalAmount, o.status, o.paymentStatus, o.createdAt, o.shippingAddress, " +
+           "oi.id, p.id, p.name, p.imageUrl, oi.quantity, oi.unitPrice) " +
+           "FROM Order o LEFT JOIN o.orderItems oi LEFT JOIN oi.product p WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC, oi.id")
+    List<OrderLineRow> findOrderLinesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.ecommerce.dto.StatusCount(o.status, COUNT(o)) FROM Order o GROUP BY o.status")
+    List<StatusCount> countByStatus();
+
+    // Oldest first; served from idx_orders_status_created_at
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt, o.id")
+    List<Long> findIdsByStatus(@Param("status") OrderStatus status);
+
+    // Forward-only cursor over orders and their lines, grouped by order; null filters are ignored. 500 rows per
+    // round trip; on MySQL only with useCursorFetch, which HibernateConfig turns on
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.ecommerce.dto.OrderExportRow(o.id, u.id, u.email, o.status, o.paymentStatus, o.paymentIntentId, " +
+           "o.totalAmount, o.shippingAddress, o.billingAddress, o.createdAt, p.id, p.name, oi.quantity, oi.unitPrice) " +
+           "FROM Order o JOIN o.user u LEFT JOIN o.orderItems oi LEFT JOIN oi.product p " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+           "ORDER BY o.id, oi.id")
+    Stream<OrderExportRow> streamExportRows(@Param("status") OrderStatus status,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderStatusEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+    List<OrderStatusEvent> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    List<OrderStatusEvent> findByOrderIdOrderByIdAsc(Long orderId);
+    Optional<OrderStatusEvent> findTopByOrderByIdDesc();
+    Optional<OrderStatusEvent> findTopByCreatedAtLessThanEqualOrderByIdDesc(LocalDateTime createdAt);
+
+    @Query("SELECT e.id FROM OrderStatusEvent e WHERE e.id > :id")
+    List<Long> findIdsByIdGreaterThan(@Param("id") Long id);
+}
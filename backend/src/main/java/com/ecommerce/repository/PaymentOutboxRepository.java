@@ -0,0 +1,32 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.PaymentOutboxEntry;
+import com.ecommerce.model.PaymentOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutboxEntry, Long> {
+    Optional<PaymentOutboxEntry> findByOrderId(Long orderId);
+    List<PaymentOutboxEntry> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(PaymentOutboxStatus status, LocalDateTime now, Pageable pageable);
+
+    // Conditional PENDING -> PROCESSING change; a return value of 0 means another worker already claimed the entry
+    @Modifying
+    @Query("UPDATE PaymentOutboxEntry e SET e.status = com.ecommerce.model.PaymentOutboxStatus.PROCESSING, e.claimedAt = :now " +
+           "WHERE e.id = :id AND e.status = com.ecommerce.model.PaymentOutboxStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Only claims older than the lease are released, so entries being relayed on other instances are left alone
+    @Modifying
+    @Query("UPDATE PaymentOutboxEntry e SET e.status = com.ecommerce.model.PaymentOutboxStatus.PENDING, e.claimedAt = null " +
+           "WHERE e.status = com.ecommerce.model.PaymentOutboxStatus.PROCESSING AND e.claimedAt < :claimedBefore")
+    int releaseExpiredClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+}
@@ -1,17 +1,28 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ProductSummary;
 import com.ecommerce.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     List<Product> findByCategory(String category);
     List<Product> findByBrand(String brand);
     
@@ -25,4 +36,25 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<String> findAllBrands();
     
     List<Product> findByStockQuantityGreaterThan(Integer quantity);
+
+    Slice<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query(value = "SELECT new com.ecommerce.dto.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.imageUrl, p.category, p.brand) FROM Product p",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummary> findAllSummaries(Pageable pageable);
+
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // 500 rows per round trip; on MySQL only with useCursorFetch, which HibernateConfig turns on
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Product> streamAllByOrderByIdAsc();
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = LOCAL DATETIME " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = LOCAL DATETIME WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
 } 
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.ecommerce.repository;
+
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+    int decrementStock(Map<Long, Integer> quantities);
+}
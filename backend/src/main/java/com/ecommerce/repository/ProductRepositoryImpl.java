@@ -0,0 +1,41 @@
+package com.ecommerce.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Decrements every product in one conditional UPDATE; rows without enough stock are left untouched,
+    // so callers compare the returned row count against quantities.size()
+    @Override
+    public int decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        StringBuilder amount = new StringBuilder("CASE p.id");
+        for (int i = 0; i < entries.size(); i++) {
+            amount.append(" WHEN :id").append(i).append(" THEN :qty").append(i);
+        }
+        amount.append(" ELSE 0 END");
+
+        Query query = entityManager.createQuery(
+                "UPDATE Product p SET p.stockQuantity = p.stockQuantity - " + amount + ", p.updatedAt = LOCAL DATETIME" +
+                " WHERE p.id IN :ids AND p.stockQuantity >= " + amount);
+        for (int i = 0; i < entries.size(); i++) {
+            query.setParameter("id" + i, entries.get(i).getKey());
+            query.setParameter("qty" + i, entries.get(i).getValue());
+        }
+        query.setParameter("ids", quantities.keySet());
+        return query.executeUpdate();
+    }
+}
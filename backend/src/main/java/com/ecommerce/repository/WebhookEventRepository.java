@@ -0,0 +1,43 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.WebhookEvent;
+import com.ecommerce.model.WebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+    boolean existsByEventId(String eventId);
+    List<WebhookEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(WebhookEventStatus status, LocalDateTime now, Pageable pageable);
+
+    // Conditional RECEIVED -> PROCESSING change; a return value of 0 means another worker already claimed the event
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.model.WebhookEventStatus.PROCESSING, e.claimedAt = :now " +
+           "WHERE e.id = :id AND e.status = com.ecommerce.model.WebhookEventStatus.RECEIVED")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Only claims older than the lease are released, so events in flight on other instances are left alone
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.model.WebhookEventStatus.RECEIVED, e.claimedAt = null " +
+           "WHERE e.status = com.ecommerce.model.WebhookEventStatus.PROCESSING AND e.claimedAt < :claimedBefore")
+    int releaseExpiredClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.model.WebhookEventStatus.RECEIVED, e.attempts = 0, e.lastError = null, " +
+           "e.nextAttemptAt = :now WHERE e.eventId IN :eventIds AND e.status <> com.ecommerce.model.WebhookEventStatus.PROCESSING")
+    int replayByEventIds(@Param("eventIds") Collection<String> eventIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.ecommerce.model.WebhookEventStatus.RECEIVED, e.attempts = 0, e.lastError = null, " +
+           "e.nextAttemptAt = :now WHERE e.receivedAt >= :from AND e.receivedAt < :to " +
+           "AND e.status <> com.ecommerce.model.WebhookEventStatus.PROCESSING")
+    int replayReceivedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, @Param("now") LocalDateTime now);
+}
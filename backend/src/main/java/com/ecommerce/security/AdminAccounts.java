@@ -0,0 +1,34 @@
+package com.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Users have no role column, so the accounts allowed onto the operator endpoints (webhook replay, bulk import and
+// export, order exports and event feeds) are listed by email in app.security.admin-emails. Empty means nobody.
+@Component
+public class AdminAccounts {
+
+    private static final List<GrantedAuthority> USER = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    private static final List<GrantedAuthority> ADMIN =
+            List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    private final Set<String> adminEmails;
+
+    public AdminAccounts(@Value("${app.security.admin-emails:}") List<String> adminEmails) {
+        this.adminEmails = adminEmails.stream()
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public List<GrantedAuthority> authoritiesFor(String email) {
+        return email != null && adminEmails.contains(email.toLowerCase(Locale.ROOT)) ? ADMIN : USER;
+    }
+}
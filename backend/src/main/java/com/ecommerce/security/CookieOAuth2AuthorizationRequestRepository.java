@@ -0,0 +1,69 @@
+package com.ecommerce.security;
+
+import com.ecommerce.util.CookieUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+// Keeps the pending authorization request in a short-lived signed cookie instead of the HTTP session, so the
+// OAuth2 callback can land on any node. The cookie is only deserialized after its signature has been checked.
+public class CookieOAuth2AuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    public static final String COOKIE_NAME = "oauth2_auth_request";
+
+    // Time the user has to finish signing in at the provider
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final TokenService tokenService;
+
+    public CookieOAuth2AuthorizationRequestRepository(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        byte[] serialized = tokenService.unsign(TokenService.Purpose.AUTHORIZATION_REQUEST,
+                CookieUtils.get(request, COOKIE_NAME));
+        if (serialized == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (OAuth2AuthorizationRequest) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+                                         HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            CookieUtils.delete(response, COOKIE_NAME, tokenService.isCookieSecure());
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(authorizationRequest);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String signed = tokenService.sign(TokenService.Purpose.AUTHORIZATION_REQUEST, bytes.toByteArray(), MAX_AGE);
+        CookieUtils.add(response, COOKIE_NAME, signed, MAX_AGE, tokenService.isCookieSecure());
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request, HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        CookieUtils.delete(response, COOKIE_NAME, tokenService.isCookieSecure());
+        return authorizationRequest;
+    }
+}
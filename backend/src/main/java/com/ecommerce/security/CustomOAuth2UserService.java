@@ -2,9 +2,9 @@ package com.ecommerce.security;
 
 import com.ecommerce.model.AuthProvider;
 import com.ecommerce.model.User;
-import com.ecommerce.repository.UserRepository;
 import com.ecommerce.security.oauth2.OAuth2UserInfo;
 import com.ecommerce.security.oauth2.OAuth2UserInfoFactory;
+import com.ecommerce.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.AuthenticationException;
@@ -15,13 +15,17 @@ import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
+
+    @Autowired
+    private AdminAccounts adminAccounts;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest oAuth2UserRequest) throws OAuth2AuthenticationException {
@@ -42,7 +46,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             throw new OAuth2AuthenticationProcessingException("Email not found from OAuth2 provider");
         }
 
-        Optional<User> userOptional = userRepository.findByEmail(oAuth2UserInfo.getEmail());
+        Optional<User> userOptional = userService.getUserByEmail(oAuth2UserInfo.getEmail());
         User user;
         if(userOptional.isPresent()) {
             user = userOptional.get();
@@ -56,7 +60,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             user = registerNewUser(oAuth2UserRequest, oAuth2UserInfo);
         }
 
-        return UserPrincipal.create(user, oAuth2User.getAttributes());
+        return UserPrincipal.create(user, oAuth2User.getAttributes(), adminAccounts.authoritiesFor(user.getEmail()));
     }
 
     private User registerNewUser(OAuth2UserRequest oAuth2UserRequest, OAuth2UserInfo oAuth2UserInfo) {
@@ -67,12 +71,19 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         user.setName(oAuth2UserInfo.getName());
         user.setEmail(oAuth2UserInfo.getEmail());
         user.setImageUrl(oAuth2UserInfo.getImageUrl());
-        return userRepository.save(user);
+        return userService.saveUser(user);
     }
 
+    // Most logins carry the same profile as last time; only a changed name or picture is written
     private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
-        existingUser.setName(oAuth2UserInfo.getName());
-        existingUser.setImageUrl(oAuth2UserInfo.getImageUrl());
-        return userRepository.save(existingUser);
+        if (Objects.equals(existingUser.getName(), oAuth2UserInfo.getName())
+                && Objects.equals(existingUser.getImageUrl(), oAuth2UserInfo.getImageUrl())) {
+            return existingUser;
+        }
+        User userDetails = new User();
+        userDetails.setName(oAuth2UserInfo.getName());
+        userDetails.setEmail(existingUser.getEmail());
+        userDetails.setImageUrl(oAuth2UserInfo.getImageUrl());
+        return userService.updateUser(existingUser.getId(), userDetails);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.ecommerce.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Only defined under the "loadtest" profile, see LoadTestSecurityConfig: authenticates each request as the user id
+// in the X-Load-Test-User header, so a load generator can act as many users without going through OAuth2.
+// Nothing is stored in the session and the user row is not read.
+public class LoadTestAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USER_HEADER = "X-Load-Test-User";
+
+    private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(USER_HEADER);
+        Long userId = parseUserId(header);
+        if (header != null && userId == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, USER_HEADER + " must be a user id");
+            return;
+        }
+
+        if (userId != null) {
+            UserPrincipal principal = new UserPrincipal(userId, "loadtest-" + userId, null, AUTHORITIES);
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, AUTHORITIES));
+            SecurityContextHolder.setContext(context);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static Long parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.ecommerce.security;
 
+import com.ecommerce.util.CookieUtils;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
@@ -17,6 +19,9 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
     @Value("${app.oauth2.authorizedRedirectUri:http://localhost:3000}")
     private String redirectUri;
 
+    @Autowired
+    private TokenService tokenService;
+
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
         String targetUrl = determineTargetUrl(request, response, authentication);
@@ -26,6 +31,12 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
             return;
         }
 
+        // In token mode the signed token in the cookie replaces the session as proof of login
+        if (tokenService.isTokenMode()) {
+            String token = tokenService.issue((UserPrincipal) authentication.getPrincipal());
+            CookieUtils.add(response, tokenService.getCookieName(), token, tokenService.getTtl(), tokenService.isCookieSecure());
+        }
+
         clearAuthenticationAttributes(request);
         getRedirectStrategy().sendRedirect(request, response, targetUrl);
     }
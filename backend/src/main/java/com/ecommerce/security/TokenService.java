@@ -0,0 +1,200 @@
+package com.ecommerce.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Compact HMAC-SHA256 signed tokens, base64url(purpose + expiry + payload) + "." + base64url(signature). Verification
+// is local: no database, no session, and the keyed Mac instances are kept per thread. The purpose byte is signed, so a
+// token minted for one use (say the OAuth2 authorization request cookie) is never accepted for another. Tokens are signed with
+// app.auth.token.secret; app.auth.token.previous-secrets are still accepted, so keys can be rotated without
+// logging everyone out. Tokens cannot be revoked before they expire, so the lifetime is kept short.
+@Component
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Autowired
+    private AdminAccounts adminAccounts;
+
+    // session keeps the HTTP session login; token makes the API stateless
+    @Value("${app.auth.mode:session}")
+    private String mode;
+
+    // Base64; every node must share it. When blank a random key is used and tokens die with the process.
+    @Value("${app.auth.token.secret:}")
+    private String secret;
+
+    @Value("${app.auth.token.previous-secrets:}")
+    private List<String> previousSecrets;
+
+    @Value("${app.auth.token.ttl-seconds:43200}")
+    private long ttlSeconds;
+
+    @Value("${app.auth.token.cookie-name:auth_token}")
+    private String cookieName;
+
+    @Value("${app.auth.token.cookie-secure:false}")
+    private boolean cookieSecure;
+
+    public enum Purpose {
+        AUTHENTICATION((byte) 1),
+        AUTHORIZATION_REQUEST((byte) 2);
+
+        private final byte id;
+
+        Purpose(byte id) {
+            this.id = id;
+        }
+    }
+
+    // Index 0 signs; all of them verify
+    private final List<ThreadLocal<Mac>> macs = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        if (!"session".equals(mode) && !"token".equals(mode)) {
+            throw new IllegalStateException("app.auth.mode must be session or token, was " + mode);
+        }
+        byte[] signingKey;
+        if (secret.isBlank()) {
+            signingKey = new byte[32];
+            new SecureRandom().nextBytes(signingKey);
+            if (isTokenMode()) {
+                logger.warn("app.auth.token.secret is not set: tokens are signed with a random key and are not accepted " +
+                        "by other nodes or after a restart");
+            }
+        } else {
+            signingKey = Base64.getDecoder().decode(secret.trim());
+        }
+        macs.add(macFor(signingKey));
+        for (String previous : previousSecrets) {
+            if (!previous.isBlank()) {
+                macs.add(macFor(Base64.getDecoder().decode(previous.trim())));
+            }
+        }
+    }
+
+    public boolean isTokenMode() {
+        return "token".equals(mode);
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public boolean isCookieSecure() {
+        return cookieSecure;
+    }
+
+    public Duration getTtl() {
+        return Duration.ofSeconds(ttlSeconds);
+    }
+
+    public String issue(UserPrincipal principal) {
+        String subject = principal.getId() + ":" + principal.getEmail();
+        return sign(Purpose.AUTHENTICATION, subject.getBytes(StandardCharsets.UTF_8), getTtl());
+    }
+
+    // Returns null for anything that is malformed, tampered with or expired
+    public UserPrincipal verify(String token) {
+        byte[] subject = unsign(Purpose.AUTHENTICATION, token);
+        if (subject == null) {
+            return null;
+        }
+        String value = new String(subject, StandardCharsets.UTF_8);
+        int separator = value.indexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            Long userId = Long.valueOf(value.substring(0, separator));
+            String email = value.substring(separator + 1);
+            // Roles are looked up on every request rather than signed in, so dropping an admin takes effect at once
+            return new UserPrincipal(userId, email, null, adminAccounts.authoritiesFor(email));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String sign(Purpose purpose, byte[] payload, Duration ttl) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttl.toSeconds();
+        byte[] body = ByteBuffer.allocate(1 + Long.BYTES + payload.length)
+                .put(purpose.id).putLong(expiresAt).put(payload).array();
+        String encodedBody = ENCODER.encodeToString(body);
+        byte[] signature = macs.get(0).get().doFinal(encodedBody.getBytes(StandardCharsets.US_ASCII));
+        return encodedBody + "." + ENCODER.encodeToString(signature);
+    }
+
+    // The payload of a token signed for this purpose, or null if it does not verify against any key, was signed for
+    // another purpose or has expired
+    public byte[] unsign(Purpose purpose, String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+        byte[] body;
+        byte[] signature;
+        try {
+            body = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (body.length < 1 + Long.BYTES || !signatureMatches(token.substring(0, dot), signature)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (buffer.get() != purpose.id || buffer.getLong() < System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return payload;
+    }
+
+    private boolean signatureMatches(String encodedBody, byte[] signature) {
+        byte[] signed = encodedBody.getBytes(StandardCharsets.US_ASCII);
+        for (ThreadLocal<Mac> mac : macs) {
+            if (MessageDigest.isEqual(mac.get().doFinal(signed), signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ThreadLocal<Mac> macFor(byte[] key) {
+        SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -43,6 +43,13 @@ public class UserPrincipal implements OAuth2User, UserDetails {
         return userPrincipal;
     }
 
+    public static UserPrincipal create(User user, Map<String, Object> attributes,
+                                       Collection<? extends GrantedAuthority> authorities) {
+        UserPrincipal userPrincipal = new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), authorities);
+        userPrincipal.setAttributes(attributes);
+        return userPrincipal;
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,115 +1,199 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CartOperation;
+import com.ecommerce.dto.CartView;
 import com.ecommerce.model.*;
-import com.ecommerce.repository.*;
+import com.ecommerce.service.CartStore.CartSnapshot;
+import com.ecommerce.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+// Cart reads and writes are served by the CartStore; products come from the catalog cache, so a cart
+// operation normally touches the database only when a cart is first loaded
 @Service
-@Transactional
 public class CartService {
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Autowired
-    private CartItemRepository cartItemRepository;
+    private ProductService productService;
 
-    @Autowired
-    private ProductRepository productRepository;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    public Cart getOrCreateCart(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-        Optional<Cart> existingCart = cartRepository.findByUser(user);
-        if (existingCart.isPresent()) {
-            return existingCart.get();
-        }
-
-        Cart newCart = new Cart(user);
-        return cartRepository.save(newCart);
-    }
+    @Value("${app.cart.max-batch-operations:100}")
+    private int maxBatchOperations;
 
     public Cart addItemToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        Product product = getProduct(productId);
 
         if (product.getStockQuantity() < quantity) {
             throw new RuntimeException("Insufficient stock for product: " + product.getName());
         }
 
-        Optional<CartItem> existingItem = cartItemRepository.findByCartAndProduct(cart, product);
-        
-        if (existingItem.isPresent()) {
-            CartItem cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + quantity;
-            
+        CartSnapshot snapshot = cartStore.update(userId, lines -> {
+            int newQuantity = lines.getOrDefault(productId, 0) + quantity;
+
             if (product.getStockQuantity() < newQuantity) {
                 throw new RuntimeException("Insufficient stock for product: " + product.getName());
             }
-            
-            cartItem.setQuantity(newQuantity);
-            cartItemRepository.save(cartItem);
-        } else {
-            CartItem newItem = new CartItem(cart, product, quantity);
-            cartItemRepository.save(newItem);
-        }
 
-        return cartRepository.findById(cart.getId()).orElse(cart);
+            lines.put(productId, newQuantity);
+        });
+
+        return toCart(snapshot);
     }
 
     public Cart updateCartItem(Long userId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        Product product = getProduct(productId);
+
+        CartSnapshot snapshot = cartStore.update(userId, lines -> {
+            if (!lines.containsKey(productId)) {
+                return;
+            }
 
-        Optional<CartItem> cartItemOpt = cartItemRepository.findByCartAndProduct(cart, product);
-        
-        if (cartItemOpt.isPresent()) {
-            CartItem cartItem = cartItemOpt.get();
-            
             if (quantity <= 0) {
-                cartItemRepository.delete(cartItem);
+                lines.remove(productId);
             } else {
                 if (product.getStockQuantity() < quantity) {
                     throw new RuntimeException("Insufficient stock for product: " + product.getName());
                 }
-                cartItem.setQuantity(quantity);
-                cartItemRepository.save(cartItem);
+                lines.put(productId, quantity);
             }
-        }
+        });
 
-        return cartRepository.findById(cart.getId()).orElse(cart);
+        return toCart(snapshot);
     }
 
     public Cart removeItemFromCart(Long userId, Long productId) {
-        Cart cart = getOrCreateCart(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        getProduct(productId);
+
+        CartSnapshot snapshot = cartStore.update(userId, lines -> lines.remove(productId));
+        return toCart(snapshot);
+    }
+
+    // Applies the operations in order as one cart update: products are fetched once for the whole batch and
+    // either every operation is applied or, if one fails, none is
+    public Cart applyOperations(Long userId, List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("No cart operations given");
+        }
+        if (operations.size() > maxBatchOperations) {
+            throw new RuntimeException("At most " + maxBatchOperations + " cart operations are allowed per request");
+        }
 
-        Optional<CartItem> cartItemOpt = cartItemRepository.findByCartAndProduct(cart, product);
-        
-        if (cartItemOpt.isPresent()) {
-            cartItemRepository.delete(cartItemOpt.get());
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation == null || operation.op() == null || operation.productId() == null) {
+                throw new RuntimeException("Each cart operation needs an op and a productId");
+            }
+            if (operation.op() != CartOperation.Type.REMOVE && operation.quantity() == null) {
+                throw new RuntimeException("Cart operation " + operation.op() + " needs a quantity");
+            }
+            productIds.add(operation.productId());
+        }
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
         }
 
-        return cartRepository.findById(cart.getId()).orElse(cart);
+        CartSnapshot snapshot = cartStore.update(userId, lines -> {
+            for (CartOperation operation : operations) {
+                Product product = products.get(operation.productId());
+                switch (operation.op()) {
+                    case ADD: {
+                        if (operation.quantity() <= 0) {
+                            throw new RuntimeException("Quantity must be positive for product: " + product.getName());
+                        }
+                        int newQuantity = lines.getOrDefault(product.getId(), 0) + operation.quantity();
+                        if (product.getStockQuantity() < newQuantity) {
+                            throw new RuntimeException("Insufficient stock for product: " + product.getName());
+                        }
+                        lines.put(product.getId(), newQuantity);
+                        break;
+                    }
+                    case UPDATE: {
+                        if (!lines.containsKey(product.getId())) {
+                            break;
+                        }
+                        if (operation.quantity() <= 0) {
+                            lines.remove(product.getId());
+                        } else if (product.getStockQuantity() < operation.quantity()) {
+                            throw new RuntimeException("Insufficient stock for product: " + product.getName());
+                        } else {
+                            lines.put(product.getId(), operation.quantity());
+                        }
+                        break;
+                    }
+                    default:
+                        lines.remove(product.getId());
+                }
+            }
+        });
+
+        return toCart(snapshot);
     }
 
     public void clearCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        cartItemRepository.deleteByCart(cart);
+        cartStore.update(userId, Map::clear);
     }
 
     public Cart getCartByUserId(Long userId) {
-        return getOrCreateCart(userId);
+        return toCart(cartStore.get(userId));
+    }
+
+    public CartView getCartView(Long userId) {
+        CartSnapshot snapshot = cartStore.get(userId);
+        List<CartView.CartLine> lines = new ArrayList<>();
+        long totalMinorUnits = 0;
+        int totalItems = 0;
+
+        Map<Long, Product> products = productService.getProductsByIds(snapshot.lines().keySet());
+        for (Map.Entry<Long, Integer> line : snapshot.lines().entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                continue;
+            }
+            long subtotalMinorUnits = product.getPriceMinorUnits() * line.getValue();
+            lines.add(new CartView.CartLine(line.getKey(), product.getName(), product.getPrice(),
+                    line.getValue(), Money.fromMinorUnits(subtotalMinorUnits)));
+            totalMinorUnits += subtotalMinorUnits;
+            totalItems += line.getValue();
+        }
+        // An empty cart reports 0, as Cart.getTotal does
+        BigDecimal total = lines.isEmpty() ? BigDecimal.ZERO : Money.fromMinorUnits(totalMinorUnits);
+        return new CartView(snapshot.cartId(), lines, total, totalItems);
+    }
+
+    private Product getProduct(Long productId) {
+        return productService.getProductById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+    }
+
+    // Detached Cart for the response body; it is never attached to a persistence context
+    private Cart toCart(CartSnapshot snapshot) {
+        Cart cart = new Cart();
+        cart.setId(snapshot.cartId());
+        cart.setCreatedAt(snapshot.createdAt());
+        cart.setUpdatedAt(snapshot.updatedAt());
+        Map<Long, Product> products = productService.getProductsByIds(snapshot.lines().keySet());
+        for (Map.Entry<Long, Integer> line : snapshot.lines().entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                continue;
+            }
+            CartItem item = new CartItem(cart, product, line.getValue());
+            item.setId(snapshot.itemIds().get(line.getKey()));
+            cart.addItem(item);
+        }
+        return cart;
     }
-} 
\ No newline at end of file
+}
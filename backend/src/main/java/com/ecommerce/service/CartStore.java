@@ -0,0 +1,25 @@
+package com.ecommerce.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Holds the working copy of each user's cart; the carts/cart_items tables are written behind it
+public interface CartStore {
+
+    // Loads the cart from the database on first access, creating an empty one if the user has none
+    CartSnapshot get(Long userId);
+
+    // Applies the mutation to a copy of the lines (productId -> quantity) under the user's lock;
+    // if it throws, the cart is left unchanged
+    CartSnapshot update(Long userId, Consumer<Map<Long, Integer>> mutation);
+
+    // Writes pending changes into the surrounding transaction and blocks further changes to the cart
+    // until that transaction completes; after a commit the cart is reloaded from the database
+    void beginCheckout(Long userId);
+
+    // itemIds maps productId -> cart_items id for lines that have been written to the database
+    record CartSnapshot(Long cartId, Map<Long, Integer> lines, Map<Long, Long> itemIds,
+                        LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Bounded read-through cache for catalog reads, invalidated entry by entry on product writes
+@Component
+public class CatalogCache {
+
+    private static final String CATEGORIES = "categories";
+    private static final String BRANDS = "brands";
+    private static final String AVAILABLE = "available";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.catalog-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.catalog-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, Optional<Product>> products;
+    private Cache<String, List<Product>> productsByCategory;
+    private Cache<String, List<String>> names;
+    private Cache<String, List<Product>> availableProducts;
+
+    @PostConstruct
+    public void init() {
+        products = newCache("catalog.products");
+        productsByCategory = newCache("catalog.productsByCategory");
+        names = newCache("catalog.names");
+        availableProducts = newCache("catalog.availableProducts");
+    }
+
+    public Optional<Product> getProduct(Long id, Function<Long, Optional<Product>> loader) {
+        return products.get(id, loader);
+    }
+
+    // Misses are loaded together; the loader must return an entry for every id it is given
+    public Map<Long, Optional<Product>> getProducts(Collection<Long> ids,
+                                                    Function<Set<? extends Long>, Map<Long, Optional<Product>>> loader) {
+        return products.getAll(ids, loader);
+    }
+
+    public List<Product> getProductsByCategory(String category, Function<String, List<Product>> loader) {
+        return productsByCategory.get(category, loader);
+    }
+
+    public List<String> getCategories(Supplier<List<String>> loader) {
+        return names.get(CATEGORIES, key -> loader.get());
+    }
+
+    public List<String> getBrands(Supplier<List<String>> loader) {
+        return names.get(BRANDS, key -> loader.get());
+    }
+
+    public List<Product> getAvailableProducts(Supplier<List<Product>> loader) {
+        return availableProducts.get(AVAILABLE, key -> loader.get());
+    }
+
+    // Drops only the entries a change from 'before' to 'after' can affect; either side may be null
+    public void invalidate(ProductSnapshot before, ProductSnapshot after) {
+        ProductSnapshot any = before != null ? before : after;
+        if (any == null) {
+            return;
+        }
+        products.invalidate(any.id());
+
+        String oldCategory = before != null ? before.category() : null;
+        String newCategory = after != null ? after.category() : null;
+        if (oldCategory != null) {
+            productsByCategory.invalidate(oldCategory);
+        }
+        if (newCategory != null) {
+            productsByCategory.invalidate(newCategory);
+        }
+        if (before == null || after == null || !Objects.equals(oldCategory, newCategory)) {
+            names.invalidate(CATEGORIES);
+        }
+        if (before == null || after == null || !Objects.equals(before.brand(), after.brand())) {
+            names.invalidate(BRANDS);
+        }
+        if ((before != null && before.inStock()) || (after != null && after.inStock())) {
+            availableProducts.invalidate(AVAILABLE);
+        }
+    }
+
+    // Stock changes only affect entries that carry stockQuantity, never the category or brand lists
+    public void invalidateStock(Product product) {
+        products.invalidate(product.getId());
+        productsByCategory.invalidate(product.getCategory());
+        availableProducts.invalidate(AVAILABLE);
+    }
+
+    public void invalidateAll() {
+        products.invalidateAll();
+        productsByCategory.invalidateAll();
+        names.invalidateAll();
+        availableProducts.invalidateAll();
+    }
+
+    private <K, V> Cache<K, V> newCache(String name) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    public record ProductSnapshot(Long id, String category, String brand, Integer stockQuantity) {
+
+        public static ProductSnapshot of(Product product) {
+            return product == null ? null : new ProductSnapshot(
+                    product.getId(), product.getCategory(), product.getBrand(), product.getStockQuantity());
+        }
+
+        public boolean inStock() {
+            return stockQuantity != null && stockQuantity > 0;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CheckoutStatus;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.PaymentOutboxEntry;
+import com.ecommerce.model.PaymentOutboxStatus;
+import com.ecommerce.repository.PaymentOutboxRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checkout in two stages. The request thread reserves stock and writes the order together with a payment_outbox
+// row in one short transaction, then returns. Relay workers create the PaymentIntent from the outbox with no
+// transaction open during the Stripe call and record the result in a second one. A relay retried after a
+// timeout or connection failure reuses the order's idempotency key, so Stripe returns the PaymentIntent if the
+// lost request did create one; after a 5xx, which Stripe replays for the same key, PaymentService sends the next
+// try under a fresh key. When Stripe rejects the request, or keeps failing for max-attempts tries, the order is
+// cancelled and its stock released.
+@Service
+public class CheckoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutService.class);
+
+    @Autowired
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.checkout.workers:4}")
+    private int workers;
+
+    @Value("${app.checkout.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.checkout.max-attempts:6}")
+    private int maxAttempts;
+
+    // Delay before the first retry; doubles with every further attempt
+    @Value("${app.checkout.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    // How long a claim protects an entry; must be well above the longest Stripe create, retries included
+    @Value("${app.checkout.claim-lease-ms:300000}")
+    private long claimLeaseMs;
+
+    private TransactionTemplate transaction;
+    private TransactionTemplate readTransaction;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        AtomicInteger threadCount = new AtomicInteger();
+        // At most one pending drain per worker; further wake-ups are dropped because a queued drain will see the new rows
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "checkout-relay-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public Order checkout(Long userId, String shippingAddress, String billingAddress) {
+        return transaction.execute(status -> {
+            Order order = orderService.createOrderFromCart(userId, shippingAddress, billingAddress);
+            paymentOutboxRepository.save(new PaymentOutboxEntry(order.getId(), PaymentService.paymentIntentKey(order.getId())));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+            return order;
+        });
+    }
+
+    public CheckoutStatus getStatus(Long orderId) throws StripeException {
+        CheckoutStatus status = readTransaction.execute(transactionStatus -> {
+            PaymentOutboxEntry entry = paymentOutboxRepository.findByOrderId(orderId)
+                    .orElseThrow(() -> new RuntimeException("No checkout found for order: " + orderId));
+            Order order = orderService.getOrderById(orderId);
+            return new CheckoutStatus(orderId, entry.getStatus(), order.getStatus(), order.getPaymentIntentId(),
+                    null, entry.getStatus() == PaymentOutboxStatus.FAILED ? entry.getLastError() : null);
+        });
+        if (status.stage() != PaymentOutboxStatus.COMPLETED) {
+            return status;
+        }
+        // Normally answered from the intent cache the relay has just filled
+        PaymentIntent paymentIntent = paymentService.retrievePaymentIntent(status.paymentIntentId());
+        return new CheckoutStatus(orderId, status.stage(), status.orderStatus(), status.paymentIntentId(),
+                paymentIntent.getClientSecret(), null);
+    }
+
+    // Safety net for entries whose wake-up was dropped or that are waiting for a retry
+    @Scheduled(fixedDelayString = "${app.checkout.poll-interval-ms:1000}")
+    public void wakeUp() {
+        executor.execute(this::drain);
+    }
+
+    // Entries claimed by a worker that died, on this instance or another, are picked up again once the lease runs out
+    @Scheduled(fixedDelayString = "${app.checkout.lease-check-interval-ms:60000}")
+    public void releaseExpiredClaims() {
+        LocalDateTime claimedBefore = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMs));
+        Integer released = transaction.execute(status -> paymentOutboxRepository.releaseExpiredClaims(claimedBefore));
+        if (released != null && released > 0) {
+            logger.warn("Released {} payment outbox entries whose claim expired", released);
+            wakeUp();
+        }
+    }
+
+    private void drain() {
+        List<PaymentOutboxEntry> batch;
+        do {
+            batch = paymentOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    PaymentOutboxStatus.PENDING, LocalDateTime.now(), Pageable.ofSize(batchSize));
+            for (PaymentOutboxEntry entry : batch) {
+                Integer claimed = transaction.execute(status ->
+                        paymentOutboxRepository.claim(entry.getId(), LocalDateTime.now()));
+                if (claimed != null && claimed == 1) {
+                    relay(entry);
+                }
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void relay(PaymentOutboxEntry entry) {
+        entry.setAttempts(entry.getAttempts() + 1);
+        try {
+            Order order = readTransaction.execute(status -> orderService.getOrderById(entry.getOrderId()));
+            if (order.getStatus() != OrderStatus.PENDING) {
+                // Cancelled or otherwise moved on while queued; there is nothing to pay for any more
+                finish(entry, PaymentOutboxStatus.FAILED, "Order is " + order.getStatus() + ", payment not requested");
+                return;
+            }
+
+            PaymentIntent paymentIntent = paymentService.createPaymentIntent(order, entry.getIdempotencyKey());
+
+            transaction.executeWithoutResult(status -> {
+                orderService.updatePaymentStatus(order.getId(), paymentIntent.getId(), "created");
+                entry.setStatus(PaymentOutboxStatus.COMPLETED);
+                entry.setProcessedAt(LocalDateTime.now());
+                entry.setClaimedAt(null);
+                entry.setLastError(null);
+                paymentOutboxRepository.save(entry);
+            });
+        } catch (StripeException e) {
+            if (StripeGateway.isProviderFailure(e)) {
+                retryOrCompensate(entry, e);
+            } else {
+                compensate(entry, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            retryOrCompensate(entry, e);
+        }
+    }
+
+    private void retryOrCompensate(PaymentOutboxEntry entry, Exception e) {
+        if (entry.getAttempts() >= maxAttempts) {
+            logger.warn("Creating the payment for order {} failed {} times, cancelling it", entry.getOrderId(), entry.getAttempts(), e);
+            compensate(entry, e.getMessage());
+            return;
+        }
+        logger.info("Creating the payment for order {} failed, retrying: {}", entry.getOrderId(), e.getMessage());
+        long backoffMs = retryBackoffMs << Math.min(entry.getAttempts() - 1, 16);
+        entry.setStatus(PaymentOutboxStatus.PENDING);
+        entry.setClaimedAt(null);
+        entry.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+        entry.setLastError(truncate(e.getMessage()));
+        transaction.executeWithoutResult(status -> paymentOutboxRepository.save(entry));
+    }
+
+    private void compensate(PaymentOutboxEntry entry, String reason) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                orderService.cancelUnpaidOrder(entry.getOrderId());
+                entry.setStatus(PaymentOutboxStatus.FAILED);
+                entry.setClaimedAt(null);
+                entry.setProcessedAt(LocalDateTime.now());
+                entry.setLastError(truncate(reason));
+                paymentOutboxRepository.save(entry);
+            });
+        } catch (RuntimeException e) {
+            // Left for the next poll, which runs the compensation again
+            logger.warn("Cancelling order {} failed", entry.getOrderId(), e);
+            entry.setStatus(PaymentOutboxStatus.PENDING);
+            entry.setClaimedAt(null);
+            entry.setAttempts(maxAttempts);
+            transaction.executeWithoutResult(status -> paymentOutboxRepository.save(entry));
+        }
+    }
+
+    private void finish(PaymentOutboxEntry entry, PaymentOutboxStatus outcome, String reason) {
+        entry.setStatus(outcome);
+        entry.setClaimedAt(null);
+        entry.setProcessedAt(LocalDateTime.now());
+        entry.setLastError(truncate(reason));
+        transaction.executeWithoutResult(status -> paymentOutboxRepository.save(entry));
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
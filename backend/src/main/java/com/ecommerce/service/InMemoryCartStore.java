@@ -0,0 +1,363 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Default CartStore: carts live in a concurrent map guarded by per-user locks. Mutations only mark a cart
+// dirty; a scheduled pass writes each dirty cart in one reconciling transaction, so bursts of changes are
+// coalesced. After a restart carts are reloaded lazily, losing at most one flush interval.
+// A checkout holds its user's lock while it also holds a database connection, so nothing else reads or writes
+// the database while holding a lock: loads read first and install under the lock, and the write-behind pass
+// copies the snapshot under the lock and writes it after releasing it. Writers of one cart are serialised on the
+// user's row instead.
+@Component
+public class InMemoryCartStore implements CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryCartStore.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.cart-store.idle-seconds:1800}")
+    private long idleSeconds;
+
+    private final Map<Long, CartEntry> carts = new ConcurrentHashMap<>();
+    // A user's lock stays in the map while the user has a cached cart or someone holds it
+    private final Map<Long, UserLock> locks = new ConcurrentHashMap<>();
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public CartSnapshot get(Long userId) {
+        CartEntry entry = carts.get(userId);
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+            return entry.snapshot;
+        }
+        UserLock lock = lockLoaded(userId);
+        try {
+            return carts.get(userId).snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CartSnapshot update(Long userId, Consumer<Map<Long, Integer>> mutation) {
+        UserLock lock = lockLoaded(userId);
+        try {
+            CartEntry entry = carts.get(userId);
+            CartSnapshot current = entry.snapshot;
+            Map<Long, Integer> lines = new LinkedHashMap<>(current.lines());
+            mutation.accept(lines);
+
+            entry.snapshot = new CartSnapshot(current.cartId(), Collections.unmodifiableMap(lines), current.itemIds(),
+                    current.createdAt(), LocalDateTime.now());
+            entry.dirty = true;
+            return entry.snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void beginCheckout(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Checkout must run inside a transaction");
+        }
+        UserLock lock = lock(userId);
+        try {
+            CartEntry entry = carts.get(userId);
+            boolean flushed = entry != null && entry.dirty;
+            if (entry != null) {
+                // A write-behind pass still writing this cart sees the flag once it holds the user's row and
+                // leaves the cart to this checkout
+                entry.checkingOut = true;
+            }
+            if (flushed) {
+                entry.snapshot = write(userId, entry.snapshot, null);
+                entry.dirty = false;
+            }
+            // The lock is held until the checkout transaction completes and is released on this same thread
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            carts.remove(userId);
+                            lock.checkouts++;
+                            locks.remove(userId, lock);
+                        } else if (entry != null) {
+                            entry.checkingOut = false;
+                            if (flushed) {
+                                entry.dirty = true;
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (carts.get(userId) != null) {
+                carts.get(userId).checkingOut = false;
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    // Write-behind pass; carts locked by a checkout are skipped and picked up by the next pass
+    @Scheduled(fixedDelayString = "${app.cart-store.flush-interval-ms:1000}")
+    public void flushDirty() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(true);
+    }
+
+    private void flush(boolean wait) {
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleSeconds);
+        for (Long userId : locks.keySet()) {
+            UserLock lock = wait ? lock(userId) : tryLock(userId);
+            if (lock == null) {
+                continue;
+            }
+            CartEntry entry;
+            CartSnapshot pending;
+            try {
+                entry = carts.get(userId);
+                if (entry == null) {
+                    // Left behind by a load that failed
+                    locks.remove(userId, lock);
+                    continue;
+                }
+                if (!entry.dirty) {
+                    if (entry.lastAccess < idleBefore) {
+                        carts.remove(userId);
+                        locks.remove(userId, lock);
+                    }
+                    continue;
+                }
+                pending = entry.snapshot;
+            } finally {
+                lock.unlock();
+            }
+
+            CartSnapshot written;
+            try {
+                written = write(userId, pending, entry);
+            } catch (RuntimeException e) {
+                logger.warn("Writing cart for user {} failed", userId, e);
+                continue;
+            }
+            if (written == null) {
+                continue;
+            }
+
+            lock = lock(userId);
+            try {
+                // Changes made while the write ran keep the cart dirty for the next pass
+                if (carts.get(userId) == entry && entry.snapshot == pending) {
+                    entry.snapshot = written;
+                    entry.dirty = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Returns holding the user's lock, with the cart cached. The database is read before the lock is taken; a
+    // checkout that commits in between bumps the lock's counter, and the stale read is discarded and repeated.
+    private UserLock lockLoaded(Long userId) {
+        while (true) {
+            UserLock expected = locks.computeIfAbsent(userId, id -> new UserLock());
+            long checkouts = expected.checkouts;
+            CartSnapshot loaded = carts.containsKey(userId) ? null : transaction.execute(status -> read(userId));
+
+            UserLock lock = lock(userId);
+            if (lock == expected && lock.checkouts == checkouts) {
+                CartEntry entry = carts.get(userId);
+                if (entry == null && loaded != null) {
+                    entry = new CartEntry(loaded);
+                    carts.put(userId, entry);
+                }
+                if (entry != null) {
+                    entry.lastAccess = System.nanoTime();
+                    return lock;
+                }
+            }
+            lock.unlock();
+        }
+    }
+
+    // A lock removed from the map while this thread waited for it no longer guards the user; take the current one
+    private UserLock lock(Long userId) {
+        while (true) {
+            UserLock lock = locks.computeIfAbsent(userId, id -> new UserLock());
+            lock.lock();
+            if (locks.get(userId) == lock) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    // Null if the user's lock is held elsewhere
+    private UserLock tryLock(Long userId) {
+        UserLock lock = locks.get(userId);
+        if (lock == null || !lock.tryLock()) {
+            return null;
+        }
+        if (locks.get(userId) != lock) {
+            lock.unlock();
+            return null;
+        }
+        return lock;
+    }
+
+    private CartSnapshot read(Long userId) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId).orElseGet(() -> findOrCreateCart(lockUser(userId)));
+        List<CartItem> items = new ArrayList<>(cart.getItems());
+        items.sort(Comparator.comparing(CartItem::getId));
+        return snapshotOf(cart, items, cart.getUpdatedAt());
+    }
+
+    // Reconciles cart_items with the snapshot: the user's row lock, one select, then batched deletes, updates
+    // and inserts. Lines whose product no longer exists are dropped. A write-behind pass passes the entry it
+    // copied the snapshot from and writes nothing (returning null) if a checkout has taken the cart over since.
+    private CartSnapshot write(Long userId, CartSnapshot snapshot, CartEntry flushed) {
+        return transaction.execute(status -> {
+            User user = lockUser(userId);
+            if (flushed != null && (flushed.checkingOut || carts.get(userId) != flushed)) {
+                return null;
+            }
+            Cart cart = findOrCreateCart(user);
+            Map<Long, Integer> lines = snapshot.lines();
+
+            Map<Long, CartItem> existing = new LinkedHashMap<>();
+            for (CartItem item : new ArrayList<>(cart.getItems())) {
+                Integer quantity = lines.get(item.getProduct().getId());
+                if (quantity == null) {
+                    cart.removeItem(item);
+                } else {
+                    item.setQuantity(quantity);
+                    existing.put(item.getProduct().getId(), item);
+                }
+            }
+
+            List<Long> newProductIds = lines.keySet().stream()
+                    .filter(productId -> !existing.containsKey(productId))
+                    .collect(Collectors.toList());
+            Map<Long, Product> products = newProductIds.isEmpty() ? Map.of() : productRepository.findAllById(newProductIds)
+                    .stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            List<CartItem> items = new ArrayList<>(lines.size());
+            for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+                CartItem item = existing.get(line.getKey());
+                if (item == null) {
+                    Product product = products.get(line.getKey());
+                    if (product == null) {
+                        continue;
+                    }
+                    item = cartItemRepository.save(new CartItem(cart, product, line.getValue()));
+                    cart.addItem(item);
+                }
+                items.add(item);
+            }
+
+            cart.setUpdatedAt(snapshot.updatedAt());
+            cartRepository.save(cart);
+            return snapshotOf(cart, items, snapshot.updatedAt());
+        });
+    }
+
+    private User lockUser(Long userId) {
+        return userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+
+    // Caller holds the user's row lock, so two first loads do not both create a cart
+    private Cart findOrCreateCart(User user) {
+        return cartRepository.findWithItemsByUserId(user.getId()).orElseGet(() -> cartRepository.save(new Cart(user)));
+    }
+
+    private static CartSnapshot snapshotOf(Cart cart, List<CartItem> items, LocalDateTime updatedAt) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        Map<Long, Long> itemIds = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            lines.put(item.getProduct().getId(), item.getQuantity());
+            itemIds.put(item.getProduct().getId(), item.getId());
+        }
+        return new CartSnapshot(cart.getId(), Collections.unmodifiableMap(lines), Collections.unmodifiableMap(itemIds),
+                cart.getCreatedAt(), updatedAt);
+    }
+
+    private static class UserLock extends ReentrantLock {
+        // Committed checkouts, written under the lock; a load compares it before and after its read
+        volatile long checkouts;
+    }
+
+    private static class CartEntry {
+        // Written under the user's lock, read without it
+        volatile CartSnapshot snapshot;
+        volatile boolean dirty;
+        volatile boolean checkingOut;
+        volatile long lastAccess;
+
+        CartEntry(CartSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
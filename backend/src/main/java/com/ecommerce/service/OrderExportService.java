@@ -0,0 +1,133 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderExport;
+import com.ecommerce.dto.OrderExportRow;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.service.ProductBulkService.BulkFormat;
+import com.ecommerce.util.CsvUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Streams orders straight from a database cursor, read in blocks of the query's fetch size (on MySQL that relies
+// on the useCursorFetch HibernateConfig sets). Rows are read as DTO projections, so nothing is added to the
+// persistence context and memory stays bounded by one block, one order and the writer's buffer, whatever the
+// table size.
+@Service
+public class OrderExportService {
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "orderId", "userId", "userEmail", "status", "paymentStatus", "paymentIntentId", "totalAmount",
+            "shippingAddress", "billingAddress", "createdAt", "productId", "productName", "quantity", "unitPrice");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Orders written between explicit flushes, so the client receives the export in chunks as it is produced
+    @Value("${app.orders.export.flush-every:500}")
+    private int flushEvery;
+
+    private TransactionTemplate readTransaction;
+
+    @PostConstruct
+    public void init() {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    // CSV has one row per order line (order columns repeated, item columns empty for orders without lines);
+    // NDJSON has one object per order with its lines nested. from is inclusive, to exclusive; null filters are ignored.
+    public void exportOrders(OutputStream out, BulkFormat format, OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        readTransaction.executeWithoutResult(transactionStatus -> {
+            try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(status, from, to)) {
+                if (format == BulkFormat.CSV) {
+                    writeCsv(rows.iterator(), writer);
+                } else {
+                    writeNdjson(rows.iterator(), writer);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeCsv(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        writer.write(String.join(",", CSV_COLUMNS));
+        writer.write('\n');
+        Long previousOrderId = null;
+        int orders = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            if (!row.orderId().equals(previousOrderId)) {
+                previousOrderId = row.orderId();
+                if (++orders % flushEvery == 0) {
+                    writer.flush();
+                }
+            }
+            writer.write(CsvUtils.row(row.orderId(), row.userId(), row.userEmail(), row.status(), row.paymentStatus(),
+                    row.paymentIntentId(), row.totalAmount(), row.shippingAddress(), row.billingAddress(), row.createdAt(),
+                    row.productId(), row.productName(), row.quantity(), row.unitPrice()));
+            writer.write('\n');
+        }
+    }
+
+    // Rows arrive ordered by order id, so an order is complete as soon as the next one starts
+    private void writeNdjson(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        OrderExportRow first = null;
+        List<OrderExport.Line> items = new ArrayList<>();
+        int orders = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            if (first != null && !row.orderId().equals(first.orderId())) {
+                writeOrder(first, items, writer);
+                items = new ArrayList<>();
+                if (++orders % flushEvery == 0) {
+                    writer.flush();
+                }
+            }
+            if (first == null || !row.orderId().equals(first.orderId())) {
+                first = row;
+            }
+            if (row.productId() != null) {
+                items.add(new OrderExport.Line(row.productId(), row.productName(), row.quantity(), row.unitPrice()));
+            }
+        }
+        if (first != null) {
+            writeOrder(first, items, writer);
+        }
+    }
+
+    private void writeOrder(OrderExportRow row, List<OrderExport.Line> items, Writer writer) throws IOException {
+        OrderExport order = new OrderExport(row.orderId(), row.userId(), row.userEmail(), row.status(),
+                row.paymentStatus(), row.paymentIntentId(), row.totalAmount(), row.shippingAddress(),
+                row.billingAddress(), row.createdAt(), items);
+        writer.write(objectMapper.writeValueAsString(order));
+        writer.write('\n');
+    }
+}
@@ -1,64 +1,92 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.OrderLineRow;
+import com.ecommerce.dto.OrderSummary;
 import com.ecommerce.model.*;
-import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
 import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderStatusEventRepository;
 import com.ecommerce.repository.UserRepository;
+import com.ecommerce.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final Map<String, Function<String, Object>> ORDER_CURSOR_TYPES = new LinkedHashMap<>();
+
+    static {
+        ORDER_CURSOR_TYPES.put("createdAt", LocalDateTime::parse);
+        ORDER_CURSOR_TYPES.put("id", Long::valueOf);
+    }
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Autowired
+    private OrderStatusView orderStatusView;
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private CartService cartService;
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
 
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CartStore cartStore;
+
     public Order createOrderFromCart(Long userId, String shippingAddress, String billingAddress) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        // Write pending cart changes into this transaction and hold the cart until it completes
+        cartStore.beginCheckout(userId);
 
-        Cart cart = cartService.getCartByUserId(userId);
+        // Load user, cart, items and products in one query
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cannot create order from empty cart"));
         
         if (cart.getItems().isEmpty()) {
             throw new RuntimeException("Cannot create order from empty cart");
         }
+        User user = cart.getUser();
+
+        // Reserve stock for all lines at once; throws and rolls back if any line is short
+        productService.reserveStock(cart.getItems());
 
         // Calculate total amount
         BigDecimal totalAmount = cart.getTotal();
 
-        // Create order
+        // Create order; its items are inserted through the cascade
         Order order = new Order(user, totalAmount, shippingAddress, billingAddress);
-        order = orderRepository.save(order);
-
-        // Create order items from cart items
         List<OrderItem> orderItems = new ArrayList<>();
         for (CartItem cartItem : cart.getItems()) {
-            // Check product availability
-            if (!productService.isProductAvailable(cartItem.getProduct().getId(), cartItem.getQuantity())) {
-                throw new RuntimeException("Product " + cartItem.getProduct().getName() + " is not available in required quantity");
-            }
-
             OrderItem orderItem = new OrderItem(
                 order,
                 cartItem.getProduct(),
@@ -68,16 +96,12 @@ public class OrderService {
             orderItems.add(orderItem);
         }
 
-        orderItemRepository.saveAll(orderItems);
         order.setOrderItems(orderItems);
+        order = orderRepository.save(order);
+        recordStatusChange(order, null);
 
-        // Update product stock
-        for (CartItem cartItem : cart.getItems()) {
-            productService.updateStock(cartItem.getProduct().getId(), cartItem.getQuantity());
-        }
-
-        // Clear the cart
-        cartService.clearCart(userId);
+        // Clear the cart with a single bulk delete
+        cartItemRepository.deleteAllByCartId(cart.getId());
 
         return order;
     }
@@ -87,26 +111,72 @@ public class OrderService {
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
     }
 
+    // Status changes read the order under a row lock; without it two concurrent changes could both start from
+    // the same previous status and log two transitions out of it
+    private Order getOrderForUpdate(Long orderId) {
+        return orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+    }
+
     public List<Order> getOrdersByUserId(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         return orderRepository.findByUserOrderByCreatedAtDesc(user);
     }
 
+    // Order history as flat projections, assembled from a single order/item join
+    @Transactional(readOnly = true)
+    public List<OrderSummary> getOrderSummariesByUserId(Long userId) {
+        List<OrderSummary> summaries = new ArrayList<>();
+        OrderSummary current = null;
+        for (OrderLineRow row : orderRepository.findOrderLinesByUserId(userId)) {
+            if (current == null || !current.id().equals(row.orderId())) {
+                current = new OrderSummary(row.orderId(), row.totalAmount(), row.status(), row.paymentStatus(),
+                        row.createdAt(), row.shippingAddress(), new ArrayList<>());
+                summaries.add(current);
+            }
+            if (row.lineId() != null) {
+                current.items().add(new OrderSummary.OrderLine(row.lineId(), row.productId(), row.productName(),
+                        row.productImageUrl(), row.quantity(), row.unitPrice()));
+            }
+        }
+        return summaries;
+    }
+
     public Page<Order> getOrdersByUserId(Long userId, Pageable pageable) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         return orderRepository.findByUser(user, pageable);
     }
 
+    // Newest first, keyset-paginated on (createdAt, id) so deep pages cost the same as the first
+    @Transactional(readOnly = true)
+    public Window<Order> scrollOrdersByUserId(Long userId, String cursor, int size) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        return orderRepository.findByUserId(userId, KeysetCursor.decode(cursor, ORDER_CURSOR_TYPES), sort, Limit.of(size));
+    }
+
     public Order updateOrderStatus(Long orderId, OrderStatus status) {
-        Order order = getOrderById(orderId);
+        Order order = getOrderForUpdate(orderId);
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
-        return orderRepository.save(order);
+        order = orderRepository.save(order);
+        if (previousStatus != status) {
+            recordStatusChange(order, previousStatus);
+        }
+        return order;
     }
 
     public Order updatePaymentStatus(Long orderId, String paymentIntentId, String paymentStatus) {
-        Order order = getOrderById(orderId);
+        Order order = getOrderForUpdate(orderId);
+        OrderStatus previousStatus = order.getStatus();
+        String previousPaymentStatus = order.getPaymentStatus();
+        // Webhooks are applied in parallel, retried after backoff and replayed by range, so a stale failure or
+        // "created" can arrive after the payment succeeded. A paid order never goes back on payment state alone.
+        if (!"succeeded".equals(paymentStatus) && ("succeeded".equals(previousPaymentStatus)
+                || "failed".equals(paymentStatus) && !isAwaitingPayment(previousStatus))) {
+            return order;
+        }
         order.setPaymentIntentId(paymentIntentId);
         order.setPaymentStatus(paymentStatus);
         
@@ -116,7 +186,75 @@ public class OrderService {
             order.setStatus(OrderStatus.CANCELLED);
         }
         
-        return orderRepository.save(order);
+        order = orderRepository.save(order);
+        if (previousStatus != order.getStatus() || !Objects.equals(previousPaymentStatus, paymentStatus)) {
+            recordStatusChange(order, previousStatus);
+        }
+        return order;
+    }
+
+    private static boolean isAwaitingPayment(OrderStatus status) {
+        return status == OrderStatus.PENDING || status == OrderStatus.CANCELLED;
+    }
+
+    // Compensates a checkout whose payment could not be set up: the order is cancelled and its stock released.
+    // Returns false if the order has already moved on, in which case nothing is changed.
+    public boolean cancelUnpaidOrder(Long orderId) {
+        Order order = getOrderForUpdate(orderId);
+        if (order.getStatus() != OrderStatus.PENDING || order.getPaymentIntentId() != null) {
+            return false;
+        }
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setPaymentStatus("failed");
+        order = orderRepository.save(order);
+        recordStatusChange(order, OrderStatus.PENDING);
+        productService.releaseStock(order.getOrderItems());
+        return true;
+    }
+
+    // Appends to the event log in the current transaction; the status view picks it up after commit
+    private void recordStatusChange(Order order, OrderStatus previousStatus) {
+        OrderStatusEvent event = orderStatusEventRepository.save(
+                new OrderStatusEvent(order.getId(), previousStatus, order.getStatus(), order.getPaymentStatus()));
+        orderStatusView.record(event);
+    }
+
+    public Map<OrderStatus, Long> getStatusCounts() {
+        return orderStatusView.getCounts();
+    }
+
+    // Orders waiting longest in a non-terminal status, e.g. CONFIRMED orders for fulfilment to pick up
+    @Transactional(readOnly = true)
+    public List<Order> getOrderQueue(OrderStatus status, int limit) {
+        if (!OrderStatusView.QUEUED_STATUSES.contains(status)) {
+            throw new IllegalArgumentException("No queue is kept for status " + status);
+        }
+        List<Long> orderIds = orderStatusView.getQueue(status, limit);
+        Map<Long, Order> ordersById = orderRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> orders = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Order order = ordersById.get(orderId);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    // Committed events after the given id in log order; see OrderStatusView.getEventsAfter
+    @Transactional(readOnly = true)
+    public List<OrderStatusEvent> getStatusEventsAfter(Long afterId, int limit) {
+        return orderStatusView.getEventsAfter(afterId, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderStatusEvent> getStatusHistory(Long orderId) {
+        return orderStatusEventRepository.findByOrderIdOrderByIdAsc(orderId);
+    }
+
+    public long getLastStatusEventId() {
+        return orderStatusView.getLastEventId();
     }
 
     public Optional<Order> getOrderByPaymentIntentId(String paymentIntentId) {
@@ -127,7 +265,17 @@ public class OrderService {
         return orderRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public Page<Order> getAllOrders(Pageable pageable) {
+        return orderRepository.findAll(pageable);
+    }
+
     public List<Order> getOrdersByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status);
     }
+
+    @Transactional(readOnly = true)
+    public Page<Order> getOrdersByStatus(OrderStatus status, Pageable pageable) {
+        return orderRepository.findByStatus(status, pageable);
+    }
 } 
\ No newline at end of file
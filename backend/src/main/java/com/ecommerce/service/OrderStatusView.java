@@ -0,0 +1,260 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.StatusCount;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.OrderStatusEvent;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderStatusEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-status view kept on top of the order status event log: a count for every status and, for statuses that
+// still need work, a queue of the orders in them, oldest arrival first. It is built from the orders table once
+// at startup and afterwards changed only by committed events, so reads cost O(result) instead of a table scan.
+// Every node tails the event log, so changes made on other nodes arrive once they are older than the safety
+// window; changes made on this node are applied as soon as they commit, and skipped when the tail reaches them.
+@Component
+public class OrderStatusView {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusView.class);
+    private static final int TAIL_BATCH_SIZE = 500;
+
+    // Terminal statuses are only counted; queuing them would keep every order ever placed in memory
+    public static final Set<OrderStatus> QUEUED_STATUSES =
+            EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.orders.events.safety-window-ms:5000}")
+    private long eventsSafetyWindowMs;
+
+    private final Map<OrderStatus, AtomicLong> counts = new EnumMap<>(OrderStatus.class);
+    // status -> arrival sequence -> order id
+    private final Map<OrderStatus, ConcurrentSkipListMap<Long, Long>> queues = new EnumMap<>(OrderStatus.class);
+    // order id -> where it sits in a queue
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    // order id -> event that took it out of the queues; only needed until late callbacks for it have run
+    private final Cache<Long, Long> departed = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+    private long sequence = 0;
+    private volatile long lastEventId = 0;
+    // Id of the last event the tail has passed
+    private long position = 0;
+    // Events above the position that are already in the view: seen in the startup snapshot or applied on commit
+    private final Set<Long> applied = new ConcurrentSkipListSet<>();
+
+    // Counts, queues and the tail's starting point are read from one snapshot. Events older than the safety
+    // window belong to transactions that had committed when it was taken, so the tail starts after the newest
+    // of them and skips the newer ones the snapshot already contains.
+    @PostConstruct
+    public void init() {
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, new AtomicLong());
+            if (QUEUED_STATUSES.contains(status)) {
+                queues.put(status, new ConcurrentSkipListMap<>());
+            }
+            Gauge.builder("orders.status", counts.get(status), AtomicLong::get)
+                    .description("Orders currently in each status")
+                    .tag("status", status.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        readTransaction.executeWithoutResult(status -> {
+            for (StatusCount count : orderRepository.countByStatus()) {
+                if (count.status() != null) {
+                    counts.get(count.status()).set(count.count());
+                }
+            }
+            for (OrderStatus queued : QUEUED_STATUSES) {
+                for (Long orderId : orderRepository.findIdsByStatus(queued)) {
+                    enqueue(orderId, queued, 0L);
+                }
+            }
+            position = orderStatusEventRepository.findTopByCreatedAtLessThanEqualOrderByIdDesc(cutoff())
+                    .map(OrderStatusEvent::getId).orElse(0L);
+            applied.addAll(orderStatusEventRepository.findIdsByIdGreaterThan(position));
+            lastEventId = orderStatusEventRepository.findTopByOrderByIdDesc().map(OrderStatusEvent::getId).orElse(0L);
+        });
+    }
+
+    // Events after the given id in log order, for consumers that keep their own position. Ids are taken at insert
+    // but transactions commit in any order, so a lower id can still appear after a higher one has been read.
+    // Only events older than the safety window are returned: an event inserted before them belongs to a
+    // transaction that has committed by then, as long as no order transaction runs longer than the window.
+    public List<OrderStatusEvent> getEventsAfter(Long afterId, int limit) {
+        LocalDateTime cutoff = cutoff();
+        List<OrderStatusEvent> events = orderStatusEventRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).getCreatedAt().isAfter(cutoff)) {
+                return events.subList(0, i);
+            }
+        }
+        return events;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.view.poll-interval-ms:1000}")
+    public void tail() {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        try {
+            List<OrderStatusEvent> events;
+            do {
+                long from = currentPosition();
+                events = readTransaction.execute(status -> getEventsAfter(from, TAIL_BATCH_SIZE));
+                for (OrderStatusEvent event : events) {
+                    applyTailed(event);
+                }
+            } while (events.size() == TAIL_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            logger.warn("Reading the order status event log failed", e);
+        }
+    }
+
+    // Applies an event written on this node once the surrounding transaction commits, ahead of the tail;
+    // a rolled back change never reaches the view
+    public void record(OrderStatusEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyCommitted(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyCommitted(event);
+            }
+        });
+    }
+
+    public Map<OrderStatus, Long> getCounts() {
+        Map<OrderStatus, Long> snapshot = new EnumMap<>(OrderStatus.class);
+        counts.forEach((status, count) -> snapshot.put(status, count.get()));
+        return snapshot;
+    }
+
+    // Ids of the orders that have been in the status longest, at most limit of them
+    public List<Long> getQueue(OrderStatus status, int limit) {
+        ConcurrentSkipListMap<Long, Long> queue = queues.get(status);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        List<Long> orderIds = new ArrayList<>(Math.min(limit, 100));
+        for (Long orderId : queue.values()) {
+            if (orderIds.size() >= limit) {
+                break;
+            }
+            orderIds.add(orderId);
+        }
+        return orderIds;
+    }
+
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    private synchronized long currentPosition() {
+        return position;
+    }
+
+    private synchronized void applyCommitted(OrderStatusEvent event) {
+        // The tail may only have got there first if the transaction outlasted the safety window
+        if (event.getId() > position && applied.add(event.getId())) {
+            apply(event);
+        }
+    }
+
+    private synchronized void applyTailed(OrderStatusEvent event) {
+        if (event.getId() <= position) {
+            return;
+        }
+        position = event.getId();
+        if (!applied.remove(event.getId())) {
+            apply(event);
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusNanos(eventsSafetyWindowMs * 1_000_000L);
+    }
+
+    // Counts are adjusted by every event, in any order. Queue positions follow the newest event per order:
+    // changes to one order are serialized by its row lock, so its event ids rise in commit order, but events
+    // applied on commit here and events from other nodes reached by the tail can still arrive the other way round.
+    private void apply(OrderStatusEvent event) {
+        lastEventId = Math.max(lastEventId, event.getId());
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        if (event.getFromStatus() != null) {
+            counts.get(event.getFromStatus()).decrementAndGet();
+        }
+        counts.get(event.getToStatus()).incrementAndGet();
+
+        Position previous = positions.get(event.getOrderId());
+        Long departedAt = departed.getIfPresent(event.getOrderId());
+        if ((previous != null && previous.eventId() > event.getId()) || (departedAt != null && departedAt > event.getId())) {
+            return;
+        }
+        if (previous != null) {
+            positions.remove(event.getOrderId());
+            queues.get(previous.status()).remove(previous.sequence());
+        }
+        if (QUEUED_STATUSES.contains(event.getToStatus())) {
+            enqueue(event.getOrderId(), event.getToStatus(), event.getId());
+        } else {
+            departed.put(event.getOrderId(), event.getId());
+        }
+    }
+
+    private synchronized void enqueue(Long orderId, OrderStatus status, long eventId) {
+        long position = ++sequence;
+        queues.get(status).put(position, orderId);
+        positions.put(orderId, new Position(status, position, eventId));
+    }
+
+    private record Position(OrderStatus status, long sequence, long eventId) {
+    }
+}
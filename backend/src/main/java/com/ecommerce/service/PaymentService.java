@@ -1,32 +1,86 @@
 package com.ecommerce.service;
 
 import com.ecommerce.model.Order;
-import com.stripe.Stripe;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.service.StripeGateway.Operation;
+import com.ecommerce.util.Money;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import jakarta.annotation.PostConstruct;
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class PaymentService {
 
-    @Value("${stripe.secret-key}")
-    private String stripeSecretKey;
+    @Autowired
+    private StripeGateway stripeGateway;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.stripe.intent-cache.ttl-seconds:5}")
+    private long intentCacheTtlSeconds;
+
+    @Value("${app.stripe.intent-cache.max-size:10000}")
+    private long intentCacheMaxSize;
+
+    // Recently seen PaymentIntents, so frontend polling is served locally; webhooks refresh the entries
+    private Cache<String, CachedIntent> paymentIntents;
+    // Retrieves currently on their way to Stripe; concurrent callers for the same id wait on the same one
+    private final Map<String, CompletableFuture<PaymentIntent>> inFlight = new ConcurrentHashMap<>();
+    // Records a 5xx even when the caller's transaction rolls back
+    private TransactionTemplate keyTransaction;
 
     @PostConstruct
     public void init() {
-        Stripe.apiKey = stripeSecretKey;
+        paymentIntents = Caffeine.newBuilder()
+                .maximumSize(intentCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(intentCacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, paymentIntents, "payment.intents");
+        keyTransaction = new TransactionTemplate(transactionManager);
+        keyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Keyed by order, so a retried or resubmitted create returns the same payment intent. Stripe stores a 5xx answer
+    // under its key and replays it for 24 hours, so after a 5xx the order moves to the next key generation, which is
+    // kept on the order row and therefore shared by every node. If the failed request did create an intent after
+    // all, it is left unconfirmed and its client secret is never handed out, so it cannot be charged.
+    public static String paymentIntentKey(Long orderId) {
+        return "order-" + orderId + "-payment-intent";
     }
 
     public PaymentIntent createPaymentIntent(Order order) throws StripeException {
+        return createPaymentIntent(order, paymentIntentKey(order.getId()));
+    }
+
+    public PaymentIntent createPaymentIntent(Order order, String idempotencyKey) throws StripeException {
         // Convert amount to cents (Stripe requires amount in smallest currency unit)
-        long amountInCents = order.getTotalAmount().multiply(BigDecimal.valueOf(100)).longValue();
+        long amountInCents = Money.toMinorUnits(order.getTotalAmount());
 
         PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
                 .setAmount(amountInCents)
@@ -41,18 +95,68 @@ public class PaymentService {
                 )
                 .build();
 
-        return PaymentIntent.create(params);
+        int generation = orderRepository.findPaymentKeyGeneration(order.getId()).orElse(0);
+        String key = generation == 0 ? idempotencyKey : idempotencyKey + "-" + generation;
+        long asOf = System.currentTimeMillis();
+        PaymentIntent paymentIntent;
+        try {
+            paymentIntent = stripeGateway.call(Operation.CREATE_PAYMENT_INTENT, key,
+                    options -> PaymentIntent.create(params, options));
+        } catch (StripeException e) {
+            if (e.getStatusCode() != null && e.getStatusCode() >= 500) {
+                keyTransaction.executeWithoutResult(status ->
+                        orderRepository.advancePaymentKeyGeneration(order.getId(), generation));
+            }
+            throw e;
+        }
+        cache(paymentIntent, asOf);
+        return paymentIntent;
     }
 
     public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
-        return PaymentIntent.retrieve(paymentIntentId);
+        CachedIntent cached = paymentIntents.getIfPresent(paymentIntentId);
+        if (cached != null) {
+            return cached.paymentIntent();
+        }
+
+        CompletableFuture<PaymentIntent> load = new CompletableFuture<>();
+        CompletableFuture<PaymentIntent> existing = inFlight.putIfAbsent(paymentIntentId, load);
+        if (existing != null) {
+            return await(existing);
+        }
+        // This caller does the round trip on its own thread, inside the gateway's bulkhead
+        try {
+            long asOf = System.currentTimeMillis();
+            PaymentIntent paymentIntent = stripeGateway.call(Operation.RETRIEVE_PAYMENT_INTENT, null,
+                    options -> PaymentIntent.retrieve(paymentIntentId, options));
+            cache(paymentIntent, asOf);
+            load.complete(paymentIntent);
+            return paymentIntent;
+        } catch (StripeException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(paymentIntentId, load);
+        }
+    }
+
+    // Called with the PaymentIntent carried by a webhook event. Events are applied asynchronously and can be
+    // replayed, so the object only replaces what is cached if the event is not older than it.
+    public void updateCachedPaymentIntent(PaymentIntent paymentIntent, long eventCreatedSeconds) {
+        cache(paymentIntent, eventCreatedSeconds * 1000);
     }
 
+    // No fixed idempotency key: a confirm after a declined attempt must reach Stripe again; the SDK still
+    // reuses a generated key across its own network retries
     public PaymentIntent confirmPaymentIntent(String paymentIntentId) throws StripeException {
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-        
+        PaymentIntent paymentIntent = retrievePaymentIntent(paymentIntentId);
+
         Map<String, Object> params = new HashMap<>();
-        return paymentIntent.confirm(params);
+        long asOf = System.currentTimeMillis();
+        PaymentIntent confirmed = stripeGateway.call(Operation.CONFIRM_PAYMENT_INTENT, null,
+                options -> paymentIntent.confirm(params, options));
+        cache(confirmed, asOf);
+        return confirmed;
     }
 
     public Map<String, Object> createPaymentResponse(PaymentIntent paymentIntent) {
@@ -62,4 +166,61 @@ public class PaymentService {
         response.put("status", paymentIntent.getStatus());
         return response;
     }
-} 
\ No newline at end of file
+
+    // asOfMillis is when the object was known to be current: the event time for webhooks, and the start of the
+    // call for Stripe responses, so a retrieve that was already running when a newer webhook arrived does not
+    // put its older answer back
+    private void cache(PaymentIntent paymentIntent, long asOfMillis) {
+        CachedIntent candidate = new CachedIntent(paymentIntent, asOfMillis);
+        paymentIntents.asMap().merge(paymentIntent.getId(), candidate,
+                (current, next) -> next.supersedes(current) ? next : current);
+    }
+
+    private static PaymentIntent await(CompletableFuture<PaymentIntent> load) throws StripeException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentUnavailableException("Interrupted while waiting for the payment provider");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private record CachedIntent(PaymentIntent paymentIntent, long asOfMillis) {
+
+        // Stripe event times have one-second resolution; within the same second the further advanced status wins
+        boolean supersedes(CachedIntent current) {
+            long second = asOfMillis / 1000;
+            long currentSecond = current.asOfMillis() / 1000;
+            if (second != currentSecond) {
+                return second > currentSecond;
+            }
+            return progress(paymentIntent.getStatus()) >= progress(current.paymentIntent().getStatus());
+        }
+
+        private static int progress(String status) {
+            if (status == null) {
+                return 0;
+            }
+            switch (status) {
+                case "requires_confirmation":
+                    return 1;
+                case "requires_action":
+                    return 2;
+                case "processing":
+                    return 3;
+                case "requires_capture":
+                    return 4;
+                case "succeeded":
+                case "canceled":
+                    return 5;
+                default:
+                    return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.service;
+
+public class PaymentUnavailableException extends RuntimeException {
+    public PaymentUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,323 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogCache.ProductSnapshot;
+import com.ecommerce.util.CsvUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class ProductBulkService {
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "id", "name", "description", "price", "stockQuantity", "imageUrl", "category", "brand");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.bulk.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+
+    @PostConstruct
+    public void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    // Reads the body record by record and upserts it in batches of app.bulk.batch-size, one transaction per batch.
+    // Rows with an id update that product, rows without one are inserted.
+    public BulkImportResult importProducts(InputStream body, BulkFormat format) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        BufferedReader reader = CsvUtils.reader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        List<String> header = null;
+
+        String line;
+        long lineNumber = 0;
+        while ((line = format == BulkFormat.CSV ? CsvUtils.readRecord(reader) : reader.readLine()) != null) {
+            // Errors point at the first line of a record; quoted CSV values can span several
+            long recordLine = lineNumber + 1;
+            lineNumber += 1 + line.chars().filter(c -> c == '\n').count();
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == BulkFormat.CSV && header == null) {
+                header = CsvUtils.parseLine(line.trim());
+                continue;
+            }
+
+            try {
+                Product product = format == BulkFormat.CSV ? parseCsv(header, line) : objectMapper.readValue(line, Product.class);
+                validate(product);
+                batch.add(new ImportRow(recordLine, product, product.getId() == null));
+            } catch (Exception e) {
+                result.addError(recordLine, e.getMessage(), maxReportedErrors);
+            }
+
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+        return result;
+    }
+
+    // Streams products straight from a database cursor, detaching each entity once it has been written
+    public void exportProducts(OutputStream out, BulkFormat format) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+                if (format == BulkFormat.CSV) {
+                    writer.write(String.join(",", CSV_COLUMNS));
+                    writer.write('\n');
+                }
+                products.forEach(product -> {
+                    try {
+                        writer.write(format == BulkFormat.CSV ? toCsv(product) : objectMapper.writeValueAsString(product));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    entityManager.detach(product);
+                });
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeBatch(List<ImportRow> batch, BulkImportResult result) {
+        List<Product> saved = new ArrayList<>(batch.size());
+        List<ProductSnapshot> before = new ArrayList<>(batch.size());
+        List<RowError> missing = new ArrayList<>();
+        try {
+            writeTransaction.executeWithoutResult(status -> upsert(batch, saved, before, missing));
+        } catch (RuntimeException e) {
+            // One bad row fails the whole batch, so retry row by row to isolate it
+            saved.clear();
+            before.clear();
+            missing.clear();
+            for (ImportRow row : batch) {
+                if (row.insert()) {
+                    row.product().setId(null);
+                }
+            }
+            for (ImportRow row : batch) {
+                List<Product> rowSaved = new ArrayList<>(1);
+                List<ProductSnapshot> rowBefore = new ArrayList<>(1);
+                try {
+                    writeTransaction.executeWithoutResult(status -> upsert(List.of(row), rowSaved, rowBefore, missing));
+                    saved.addAll(rowSaved);
+                    before.addAll(rowBefore);
+                } catch (RuntimeException rowError) {
+                    result.addError(row.lineNumber(), rowError.getMessage(), maxReportedErrors);
+                }
+            }
+        }
+
+        for (RowError error : missing) {
+            result.addError(error.line(), error.message(), maxReportedErrors);
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            Product product = saved.get(i);
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+            catalogCache.invalidate(before.get(i), ProductSnapshot.of(product));
+            if (before.get(i) == null) {
+                result.created++;
+            } else {
+                result.updated++;
+            }
+        }
+    }
+
+    private void upsert(List<ImportRow> rows, List<Product> saved, List<ProductSnapshot> before, List<RowError> missing) {
+        List<Long> ids = rows.stream()
+                .filter(row -> !row.insert())
+                .map(row -> row.product().getId())
+                .collect(Collectors.toList());
+        Map<Long, Product> existing = ids.isEmpty() ? new HashMap<>() : productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (ImportRow row : rows) {
+            Product incoming = row.product();
+            if (row.insert()) {
+                saved.add(incoming);
+                before.add(null);
+                continue;
+            }
+
+            Product product = existing.get(incoming.getId());
+            if (product == null) {
+                missing.add(new RowError(row.lineNumber(), "Product not found with id: " + incoming.getId()));
+                continue;
+            }
+            before.add(ProductSnapshot.of(product));
+            product.setName(incoming.getName());
+            product.setDescription(incoming.getDescription());
+            product.setPrice(incoming.getPrice());
+            product.setStockQuantity(incoming.getStockQuantity());
+            product.setImageUrl(incoming.getImageUrl());
+            product.setCategory(incoming.getCategory());
+            product.setBrand(incoming.getBrand());
+            saved.add(product);
+        }
+
+        productRepository.saveAll(saved);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Product parseCsv(List<String> header, String line) {
+        List<String> fields = CsvUtils.parseLine(line);
+        if (fields.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " fields but found " + fields.size());
+        }
+
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = fields.get(i).trim();
+            values.put(header.get(i), value.isEmpty() ? null : value);
+        }
+
+        Product product = new Product();
+        product.setId(values.get("id") != null ? Long.valueOf(values.get("id")) : null);
+        product.setName(values.get("name"));
+        product.setDescription(values.get("description"));
+        product.setPrice(values.get("price") != null ? new BigDecimal(values.get("price")) : null);
+        product.setStockQuantity(values.get("stockQuantity") != null ? Integer.valueOf(values.get("stockQuantity")) : null);
+        product.setImageUrl(values.get("imageUrl"));
+        product.setCategory(values.get("category"));
+        product.setBrand(values.get("brand"));
+        return product;
+    }
+
+    private void validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (product.getPrice() == null || product.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("price must be zero or positive");
+        }
+        if (product.getStockQuantity() == null || product.getStockQuantity() < 0) {
+            throw new IllegalArgumentException("stockQuantity must be zero or positive");
+        }
+        if (product.getCategory() == null || product.getCategory().isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+    }
+
+    private String toCsv(Product product) {
+        return CsvUtils.row(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getStockQuantity(), product.getImageUrl(), product.getCategory(), product.getBrand());
+    }
+
+    public enum BulkFormat {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        BulkFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static BulkFormat fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV.contentType)) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+
+        public static BulkFormat fromName(String name) {
+            return "csv".equalsIgnoreCase(name) ? CSV : NDJSON;
+        }
+    }
+
+    private record ImportRow(long lineNumber, Product product, boolean insert) {
+    }
+
+    public record RowError(long line, String message) {
+    }
+
+    public static class BulkImportResult {
+        private int created;
+        private int updated;
+        private int failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        void addError(long line, String message, int maxReportedErrors) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        public int getProcessed() { return created + updated + failed; }
+        public int getCreated() { return created; }
+        public int getUpdated() { return updated; }
+        public int getFailed() { return failed; }
+        public List<RowError> getErrors() { return errors; }
+    }
+}
@@ -0,0 +1,404 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// In-memory facet bitmaps over the catalog: one bitset per category and brand plus an in-stock bitset.
+// Every product gets a dense document number; filters and facet counts are bitset intersections.
+// Writes made on this node are applied as they commit, writes made on other nodes only by the periodic
+// rebuild from the database, which also drops deleted documents and re-sorts changed prices.
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+    // Share of document numbers held by deleted products or by prices outside the sorted order
+    static final double MAX_STALE_FRACTION = 0.2;
+    private static final BigDecimal MIN_MINOR_UNITS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_MINOR_UNITS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private Segment current = new Segment();
+    // Local writes made while a rebuild reads the catalog, replayed onto its result; null when none is running
+    private List<Consumer<Segment>> writesDuringRebuild;
+    private volatile boolean ready = false;
+
+    // The catalog is read outside the lock, so queries keep using the previous index until the new one is swapped in
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                writesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Segment rebuilt = null;
+            try {
+                rebuilt = load();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (rebuilt != null) {
+                        // Stock deltas are not replayed: the row read may already include them, and the next
+                        // rebuild corrects one that it missed
+                        for (Consumer<Segment> write : writesDuringRebuild) {
+                            write.accept(rebuilt);
+                        }
+                        current = rebuilt;
+                        ready = true;
+                    }
+                    writesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // Picks up stock, price and catalog changes made on other nodes
+    @Scheduled(fixedDelayString = "${app.facets.refresh-interval-ms:300000}",
+               initialDelayString = "${app.facets.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (ready) {
+            rebuildLogged();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.facets.compaction-check-interval-ms:10000}")
+    public void compactIfStale() {
+        if (ready && staleFraction() > MAX_STALE_FRACTION) {
+            rebuildLogged();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        write(segment -> segment.index(product));
+    }
+
+    public void remove(Long productId) {
+        write(segment -> segment.remove(productId));
+    }
+
+    public void adjustStock(Long productId, int delta) {
+        lock.writeLock().lock();
+        try {
+            current.adjustStock(productId, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    double staleFraction() {
+        lock.readLock().lock();
+        try {
+            return current.staleFraction();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FacetResult query(String category, String brand, BigDecimal minPrice, BigDecimal maxPrice,
+                             boolean inStockOnly, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Segment segment = current;
+            BitSet base = (BitSet) segment.live.clone();
+            if (minPrice != null || maxPrice != null) {
+                base.and(segment.priceRange(
+                        minPrice != null ? toMinorUnits(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE,
+                        maxPrice != null ? toMinorUnits(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE));
+            }
+            BitSet categoryFilter = category != null ? segment.categories.getOrDefault(category, new BitSet()) : null;
+            BitSet brandFilter = brand != null ? segment.brands.getOrDefault(brand, new BitSet()) : null;
+
+            // Each facet is counted with every filter except its own, so alternatives stay visible
+            BitSet withoutStock = intersect(base, categoryFilter, brandFilter);
+            BitSet stockFilter = inStockOnly ? segment.inStock : null;
+            Map<String, Long> categoryCounts = count(segment.categories, intersect(base, brandFilter, stockFilter));
+            Map<String, Long> brandCounts = count(segment.brands, intersect(base, categoryFilter, stockFilter));
+            BitSet inStockMatches = intersect(withoutStock, segment.inStock, null);
+            BitSet matches = inStockOnly ? inStockMatches : withoutStock;
+
+            List<Long> ids = new ArrayList<>(limit);
+            long skipped = 0;
+            for (int doc = matches.nextSetBit(0); doc >= 0 && ids.size() < limit; doc = matches.nextSetBit(doc + 1)) {
+                if (skipped++ >= offset) {
+                    ids.add(segment.productIds[doc]);
+                }
+            }
+
+            return new FacetResult(ids, matches.cardinality(), categoryCounts, brandCounts, inStockMatches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuildLogged() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warn("Rebuilding the facet index failed", e);
+        }
+    }
+
+    private Segment load() {
+        Segment segment = new Segment();
+        Long lastId = 0L;
+        Slice<Product> batch;
+        do {
+            batch = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Pageable.ofSize(REBUILD_BATCH_SIZE));
+            for (Product product : batch) {
+                segment.index(product);
+                lastId = product.getId();
+            }
+        } while (batch.hasNext());
+        segment.sortPrices();
+        return segment;
+    }
+
+    private void write(Consumer<Segment> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(current);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Price bounds are inclusive, so the lower one rounds up to the next cent and the upper one down
+    private static long toMinorUnits(BigDecimal amount, RoundingMode rounding) {
+        BigDecimal minorUnits = amount.movePointRight(Money.SCALE).setScale(0, rounding);
+        return minorUnits.max(MIN_MINOR_UNITS).min(MAX_MINOR_UNITS).longValue();
+    }
+
+    private static BitSet intersect(BitSet base, BitSet first, BitSet second) {
+        BitSet result = (BitSet) base.clone();
+        if (first != null) {
+            result.and(first);
+        }
+        if (second != null) {
+            result.and(second);
+        }
+        return result;
+    }
+
+    private static Map<String, Long> count(Map<String, BitSet> facet, BitSet filter) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : facet.entrySet()) {
+            BitSet values = (BitSet) entry.getValue().clone();
+            values.and(filter);
+            int count = values.cardinality();
+            if (count > 0) {
+                counts.put(entry.getKey(), (long) count);
+            }
+        }
+        return counts;
+    }
+
+    // One generation of the index. Document numbers of deleted products are not reused, and a price range is a
+    // binary search over the prices sorted when the segment was loaded plus a scan of the documents added or
+    // re-priced since; both kinds of stale entry are dropped by loading the next segment.
+    private static final class Segment {
+
+        private final Map<Long, Integer> docsByProductId = new HashMap<>();
+        private final Map<String, BitSet> categories = new HashMap<>();
+        private final Map<String, BitSet> brands = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private long[] productIds = new long[INITIAL_CAPACITY];
+        private long[] prices = new long[INITIAL_CAPACITY];
+        private int[] stock = new int[INITIAL_CAPACITY];
+        private String[] docCategories = new String[INITIAL_CAPACITY];
+        private String[] docBrands = new String[INITIAL_CAPACITY];
+        private int nextDoc = 0;
+
+        // Price order of the first sortedDocCount documents; unsorted holds live documents whose price is not in it
+        private long[] sortedPrices = new long[0];
+        private int[] sortedDocs = new int[0];
+        private int sortedDocCount = 0;
+        private final BitSet unsorted = new BitSet();
+
+        void index(Product product) {
+            Integer doc = docsByProductId.get(product.getId());
+            if (doc == null) {
+                doc = nextDoc++;
+                ensureCapacity(doc + 1);
+                docsByProductId.put(product.getId(), doc);
+            } else {
+                clearFacet(categories, docCategories[doc], doc);
+                clearFacet(brands, docBrands[doc], doc);
+            }
+            setDocument(doc, product);
+        }
+
+        void remove(Long productId) {
+            Integer doc = docsByProductId.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            live.clear(doc);
+            inStock.clear(doc);
+            unsorted.clear(doc);
+            clearFacet(categories, docCategories[doc], doc);
+            clearFacet(brands, docBrands[doc], doc);
+            docCategories[doc] = null;
+            docBrands[doc] = null;
+        }
+
+        void adjustStock(Long productId, int delta) {
+            Integer doc = docsByProductId.get(productId);
+            if (doc != null) {
+                stock[doc] += delta;
+                inStock.set(doc, stock[doc] > 0);
+            }
+        }
+
+        void sortPrices() {
+            sortedDocs = IntStream.range(0, nextDoc)
+                    .filter(live::get)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(doc -> prices[doc]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            sortedPrices = new long[sortedDocs.length];
+            for (int i = 0; i < sortedDocs.length; i++) {
+                sortedPrices[i] = prices[sortedDocs[i]];
+            }
+            sortedDocCount = nextDoc;
+            unsorted.clear();
+        }
+
+        BitSet priceRange(long min, long max) {
+            BitSet matches = new BitSet(nextDoc);
+            if (min > max) {
+                return matches;
+            }
+            int to = firstIndex(sortedPrices, max, false);
+            for (int i = firstIndex(sortedPrices, min, true); i < to; i++) {
+                matches.set(sortedDocs[i]);
+            }
+            matches.andNot(unsorted);
+            for (int doc = unsorted.nextSetBit(0); doc >= 0; doc = unsorted.nextSetBit(doc + 1)) {
+                if (prices[doc] >= min && prices[doc] <= max) {
+                    matches.set(doc);
+                }
+            }
+            return matches;
+        }
+
+        double staleFraction() {
+            if (nextDoc == 0) {
+                return 0;
+            }
+            return (double) (nextDoc - docsByProductId.size() + unsorted.cardinality()) / nextDoc;
+        }
+
+        private void setDocument(int doc, Product product) {
+            long price = product.getPrice() != null ? product.getPriceMinorUnits() : 0;
+            if (doc >= sortedDocCount || prices[doc] != price) {
+                unsorted.set(doc);
+            }
+            productIds[doc] = product.getId();
+            prices[doc] = price;
+            stock[doc] = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            docCategories[doc] = product.getCategory();
+            docBrands[doc] = product.getBrand();
+
+            live.set(doc);
+            inStock.set(doc, stock[doc] > 0);
+            if (product.getCategory() != null) {
+                categories.computeIfAbsent(product.getCategory(), key -> new BitSet()).set(doc);
+            }
+            if (product.getBrand() != null) {
+                brands.computeIfAbsent(product.getBrand(), key -> new BitSet()).set(doc);
+            }
+        }
+
+        private static void clearFacet(Map<String, BitSet> facet, String value, int doc) {
+            if (value == null) {
+                return;
+            }
+            BitSet docs = facet.get(value);
+            if (docs != null) {
+                docs.clear(doc);
+                if (docs.isEmpty()) {
+                    facet.remove(value);
+                }
+            }
+        }
+
+        // Position of the first sorted price at or above value (inclusive) or strictly above it
+        private static int firstIndex(long[] sorted, long value, boolean inclusive) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < value || (!inclusive && sorted[mid] == value)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= productIds.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, newCapacity);
+            prices = Arrays.copyOf(prices, newCapacity);
+            stock = Arrays.copyOf(stock, newCapacity);
+            docCategories = Arrays.copyOf(docCategories, newCapacity);
+            docBrands = Arrays.copyOf(docBrands, newCapacity);
+        }
+    }
+
+    public record FacetResult(List<Long> productIds, long totalMatches, Map<String, Long> categoryCounts,
+                              Map<String, Long> brandCounts, long inStockCount) {
+    }
+}
@@ -0,0 +1,404 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory index over product name and description, used by product search. It answers the same question as
+// the LIKE %keyword% query it replaces, case-insensitively: which products contain the keyword anywhere in their
+// name or description. Candidates come from the words containing the keyword's longest word, found through a
+// trigram index over the distinct words; a keyword of more than one word is then checked against the stored text.
+@Component
+public class ProductSearchIndex {
+
+    // Shorter words match too much of the vocabulary to be worth indexing; such keywords go to the database
+    static final int MIN_WORD_LENGTH = 3;
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int WHOLE_WORD_BONUS = 1;
+    private static final int MAX_SCORE = NAME_WEIGHT + DESCRIPTION_WEIGHT + 2 * WHOLE_WORD_BONUS;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int IN_NAME = 1;
+    private static final int IN_DESCRIPTION = 2;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Every product has a dense document number; numbers of deleted products are handed out again
+    private final Map<Long, Integer> docsByProductId = new HashMap<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    // Lowercased name and description, to check candidates and to remove stale postings
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private int nextDoc = 0;
+    // word -> documents with it in their name or description
+    private final Map<String, DocList> postings = new HashMap<>();
+    // trigram -> words containing it, for the words of at least MIN_WORD_LENGTH characters
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            docsByProductId.clear();
+            freeDocs.clear();
+            Arrays.fill(names, null);
+            Arrays.fill(descriptions, null);
+            nextDoc = 0;
+            postings.clear();
+            wordsByTrigram.clear();
+            Long lastId = 0L;
+            Slice<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Pageable.ofSize(REBUILD_BATCH_SIZE));
+                for (Product product : batch) {
+                    addDocument(product);
+                    lastId = product.getId();
+                }
+            } while (batch.hasNext());
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Whether search can answer the keyword; otherwise the caller runs the database query
+    public static boolean isSearchable(String keyword) {
+        return longestWord(keyword).length() >= MIN_WORD_LENGTH;
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns ids of products whose name or description contains the keyword, best matches first: name hits rank
+    // above description hits and whole-word hits above partial ones, with id as tiebreaker
+    public List<Long> search(String keyword) {
+        if (!isSearchable(keyword)) {
+            return Collections.emptyList();
+        }
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        String word = longestWord(keyword);
+
+        lock.readLock().lock();
+        try {
+            List<String> words = wordsContaining(word);
+            return needle.equals(word) ? matchWord(words, word) : matchText(words, needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String longestWord(String keyword) {
+        String longest = "";
+        for (String token : tokenize(keyword)) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        return longest;
+    }
+
+    // Any text containing the keyword has a word containing each of the keyword's words
+    private List<String> wordsContaining(String token) {
+        Set<String> smallest = null;
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            Set<String> words = wordsByTrigram.get(token.substring(i, i + 3));
+            if (words == null) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || words.size() < smallest.size()) {
+                smallest = words;
+            }
+        }
+        List<String> matches = new ArrayList<>();
+        for (String word : smallest) {
+            if (word.contains(token)) {
+                matches.add(word);
+            }
+        }
+        return matches;
+    }
+
+    // A keyword that is one word occurs exactly where the words containing it do, so the postings alone say where
+    private List<Long> matchWord(List<String> words, String word) {
+        BitSet inName = new BitSet(nextDoc);
+        BitSet inDescription = new BitSet(nextDoc);
+        BitSet wholeInName = new BitSet(nextDoc);
+        BitSet wholeInDescription = new BitSet(nextDoc);
+        for (String candidate : words) {
+            DocList docs = postings.get(candidate);
+            boolean whole = candidate.equals(word);
+            for (int i = 0; i < docs.size; i++) {
+                int doc = docs.docs[i];
+                if ((docs.fields[i] & IN_NAME) != 0) {
+                    inName.set(doc);
+                    if (whole) {
+                        wholeInName.set(doc);
+                    }
+                }
+                if ((docs.fields[i] & IN_DESCRIPTION) != 0) {
+                    inDescription.set(doc);
+                    if (whole) {
+                        wholeInDescription.set(doc);
+                    }
+                }
+            }
+        }
+
+        BitSet matches = (BitSet) inName.clone();
+        matches.or(inDescription);
+        long[] ids = new long[matches.cardinality()];
+        int[] scores = new int[ids.length];
+        int count = 0;
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            ids[count] = productIds[doc];
+            scores[count] = (inName.get(doc) ? NAME_WEIGHT : 0) + (wholeInName.get(doc) ? WHOLE_WORD_BONUS : 0)
+                    + (inDescription.get(doc) ? DESCRIPTION_WEIGHT : 0)
+                    + (wholeInDescription.get(doc) ? WHOLE_WORD_BONUS : 0);
+            count++;
+        }
+        return rank(ids, scores, count);
+    }
+
+    // Phrases and keywords with punctuation are checked against the text of every candidate
+    private List<Long> matchText(List<String> words, String needle) {
+        BitSet candidates = new BitSet(nextDoc);
+        for (String word : words) {
+            DocList docs = postings.get(word);
+            for (int i = 0; i < docs.size; i++) {
+                candidates.set(docs.docs[i]);
+            }
+        }
+
+        long[] ids = new long[candidates.cardinality()];
+        int[] scores = new int[ids.length];
+        int count = 0;
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            int score = score(names[doc], needle, NAME_WEIGHT) + score(descriptions[doc], needle, DESCRIPTION_WEIGHT);
+            if (score > 0) {
+                ids[count] = productIds[doc];
+                scores[count] = score;
+                count++;
+            }
+        }
+        return rank(ids, scores, count);
+    }
+
+    // Scores are small, so matches are bucketed by score and only sorted by id within a bucket
+    private static List<Long> rank(long[] ids, int[] scores, int count) {
+        int[] starts = new int[MAX_SCORE + 2];
+        for (int i = 0; i < count; i++) {
+            starts[MAX_SCORE - scores[i] + 1]++;
+        }
+        for (int bucket = 1; bucket < starts.length; bucket++) {
+            starts[bucket] += starts[bucket - 1];
+        }
+        long[] ranked = new long[count];
+        int[] next = Arrays.copyOf(starts, starts.length);
+        for (int i = 0; i < count; i++) {
+            ranked[next[MAX_SCORE - scores[i]]++] = ids[i];
+        }
+        for (int bucket = 0; bucket <= MAX_SCORE; bucket++) {
+            Arrays.sort(ranked, starts[bucket], starts[bucket + 1]);
+        }
+
+        List<Long> result = new ArrayList<>(count);
+        for (long id : ranked) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static int score(String text, String needle, int weight) {
+        int at = text.indexOf(needle);
+        if (at < 0) {
+            return 0;
+        }
+        for (; at >= 0; at = text.indexOf(needle, at + 1)) {
+            if (isWordBoundary(text, at) && isWordBoundary(text, at + needle.length())) {
+                return weight + WHOLE_WORD_BONUS;
+            }
+        }
+        return weight;
+    }
+
+    private static boolean isWordBoundary(String text, int at) {
+        return at == 0 || at == text.length()
+                || !Character.isLetterOrDigit(text.charAt(at - 1)) || !Character.isLetterOrDigit(text.charAt(at));
+    }
+
+    private void addDocument(Product product) {
+        Integer free = freeDocs.poll();
+        int doc = free != null ? free : nextDoc++;
+        ensureCapacity(doc + 1);
+        docsByProductId.put(product.getId(), doc);
+        productIds[doc] = product.getId();
+        names[doc] = product.getName() != null ? product.getName().toLowerCase(Locale.ROOT) : "";
+        descriptions[doc] = product.getDescription() != null ? product.getDescription().toLowerCase(Locale.ROOT) : "";
+
+        for (Map.Entry<String, Integer> entry : words(names[doc], descriptions[doc]).entrySet()) {
+            String word = entry.getKey();
+            DocList docs = postings.get(word);
+            if (docs == null) {
+                docs = new DocList();
+                postings.put(word, docs);
+                forEachTrigram(word, trigram -> wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(word));
+            }
+            docs.add(doc, entry.getValue());
+        }
+    }
+
+    private void removeDocument(Long productId) {
+        Integer doc = docsByProductId.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String word : words(names[doc], descriptions[doc]).keySet()) {
+            DocList docs = postings.get(word);
+            if (docs != null) {
+                docs.remove(doc);
+                if (docs.size == 0) {
+                    postings.remove(word);
+                    forEachTrigram(word, trigram -> {
+                        Set<String> words = wordsByTrigram.get(trigram);
+                        words.remove(word);
+                        if (words.isEmpty()) {
+                            wordsByTrigram.remove(trigram);
+                        }
+                    });
+                }
+            }
+        }
+        names[doc] = null;
+        descriptions[doc] = null;
+        freeDocs.push(doc);
+    }
+
+    // word -> the fields it occurs in
+    private static Map<String, Integer> words(String name, String description) {
+        Map<String, Integer> words = new HashMap<>();
+        for (String word : tokenize(name)) {
+            words.merge(word, IN_NAME, (a, b) -> a | b);
+        }
+        for (String word : tokenize(description)) {
+            words.merge(word, IN_DESCRIPTION, (a, b) -> a | b);
+        }
+        return words;
+    }
+
+    private static void forEachTrigram(String word, Consumer<String> action) {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            String trigram = word.substring(i, i + 3);
+            if (seen.add(trigram)) {
+                action.accept(trigram);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+    }
+
+    // Sorted document numbers, each with the fields the word occurs in
+    private static final class DocList {
+
+        private int[] docs = new int[4];
+        private byte[] fields = new byte[4];
+        private int size = 0;
+
+        void add(int doc, int inFields) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0) {
+                fields[at] = (byte) inFields;
+                return;
+            }
+            at = -at - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(docs, at, docs, at + 1, size - at);
+            System.arraycopy(fields, at, fields, at + 1, size - at);
+            docs[at] = doc;
+            fields[at] = (byte) inFields;
+            size++;
+        }
+
+        void remove(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0) {
+                System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+                System.arraycopy(fields, at + 1, fields, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -1,21 +1,58 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.FacetedProducts;
+import com.ecommerce.dto.ProductSummary;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.OrderItem;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogCache.ProductSnapshot;
+import com.ecommerce.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    private static final Map<String, Function<String, Object>> SCROLL_SORT_TYPES = Map.of(
+            "id", Long::valueOf,
+            "name", value -> value,
+            "price", BigDecimal::new,
+            "createdAt", LocalDateTime::parse);
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
@@ -24,12 +61,70 @@ public class ProductService {
         return productRepository.findAll(pageable);
     }
 
+    // Keyset pagination: no offset scan and no count query; id breaks ties so ordering stays stable
+    public Window<Product> scrollProducts(String cursor, int size, String sortBy, String sortDir) {
+        Function<String, Object> sortType = SCROLL_SORT_TYPES.get(sortBy);
+        if (sortType == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + sortBy);
+        }
+
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Map<String, Function<String, Object>> cursorTypes = new LinkedHashMap<>();
+        cursorTypes.put(sortBy, sortType);
+        cursorTypes.put("id", SCROLL_SORT_TYPES.get("id"));
+        Sort sort = Sort.by(direction, cursorTypes.keySet().toArray(new String[0]));
+
+        return productRepository.findAllBy(KeysetCursor.decode(cursor, cursorTypes), sort, Limit.of(size));
+    }
+
+    public Page<ProductSummary> getProductSummaries(Pageable pageable) {
+        return productRepository.findAllSummaries(pageable);
+    }
+
+    // Filtering and facet counting run on in-memory bitmaps; only the returned page is read from the database
+    public FacetedProducts getFacetedProducts(String category, String brand, BigDecimal minPrice, BigDecimal maxPrice,
+                                              boolean inStock, Pageable pageable) {
+        if (!productFacetIndex.isReady()) {
+            throw new IllegalStateException("Facet index is not ready yet");
+        }
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(
+                category, brand, minPrice, maxPrice, inStock, pageable.getOffset(), pageable.getPageSize());
+
+        Map<Long, Product> productsById = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = new ArrayList<>(result.productIds().size());
+        for (Long id : result.productIds()) {
+            Product product = productsById.get(id);
+            if (product != null) {
+                content.add(product);
+            }
+        }
+
+        return new FacetedProducts(new PageImpl<>(content, pageable, result.totalMatches()),
+                result.categoryCounts(), result.brandCounts(), result.inStockCount());
+    }
+
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return catalogCache.getProduct(id, productRepository::findById);
+    }
+
+    // Cached products by id; ids not in the cache are fetched with a single findAllById. Unknown ids are left out.
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        Map<Long, Optional<Product>> cached = catalogCache.getProducts(ids, missing -> {
+            Map<Long, Optional<Product>> loaded = new LinkedHashMap<>();
+            missing.forEach(id -> loaded.put(id, Optional.empty()));
+            productRepository.findAllById(new ArrayList<>(missing))
+                    .forEach(product -> loaded.put(product.getId(), Optional.of(product)));
+            return loaded;
+        });
+
+        Map<Long, Product> products = new LinkedHashMap<>();
+        cached.forEach((id, product) -> product.ifPresent(value -> products.put(id, value)));
+        return products;
     }
 
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return catalogCache.getProductsByCategory(category, productRepository::findByCategory);
     }
 
     public List<Product> getProductsByBrand(String brand) {
@@ -37,28 +132,61 @@ public class ProductService {
     }
 
     public Page<Product> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByKeyword(keyword, pageable);
+        if (!productSearchIndex.isReady() || !ProductSearchIndex.isSearchable(keyword)) {
+            return productRepository.findByKeyword(keyword, pageable);
+        }
+
+        List<Long> rankedIds = productSearchIndex.search(keyword);
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+
+        Map<Long, Product> productsById = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            Product product = productsById.get(id);
+            if (product != null) {
+                content.add(product);
+            }
+        }
+
+        return new PageImpl<>(content, pageable, rankedIds.size());
     }
 
     public List<String> getAllCategories() {
-        return productRepository.findAllCategories();
+        return catalogCache.getCategories(productRepository::findAllCategories);
     }
 
     public List<String> getAllBrands() {
-        return productRepository.findAllBrands();
+        return catalogCache.getBrands(productRepository::findAllBrands);
     }
 
     public List<Product> getAvailableProducts() {
-        return productRepository.findByStockQuantityGreaterThan(0);
+        return catalogCache.getAvailableProducts(() -> productRepository.findByStockQuantityGreaterThan(0));
     }
 
+    @Transactional
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        ProductSnapshot before = product.getId() != null
+                ? ProductSnapshot.of(productRepository.findById(product.getId()).orElse(null))
+                : null;
+
+        Product savedProduct = productRepository.save(product);
+        ProductSnapshot after = ProductSnapshot.of(savedProduct);
+        afterCommit(() -> {
+            productSearchIndex.index(savedProduct);
+            productFacetIndex.index(savedProduct);
+            catalogCache.invalidate(before, after);
+        });
+        return savedProduct;
     }
 
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -68,11 +196,29 @@ public class ProductService {
         product.setCategory(productDetails.getCategory());
         product.setBrand(productDetails.getBrand());
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        ProductSnapshot after = ProductSnapshot.of(savedProduct);
+        afterCommit(() -> {
+            productSearchIndex.index(savedProduct);
+            productFacetIndex.index(savedProduct);
+            catalogCache.invalidate(before, after);
+        });
+        return savedProduct;
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        Optional<Product> product = productRepository.findById(id);
+        if (product.isEmpty()) {
+            return;
+        }
+        productRepository.delete(product.get());
+        ProductSnapshot before = ProductSnapshot.of(product.get());
+        afterCommit(() -> {
+            productSearchIndex.remove(id);
+            productFacetIndex.remove(id);
+            catalogCache.invalidate(before, null);
+        });
     }
 
     public boolean isProductAvailable(Long productId, Integer quantity) {
@@ -80,16 +226,71 @@ public class ProductService {
         return product.isPresent() && product.get().getStockQuantity() >= quantity;
     }
 
+    @Transactional
     public void updateStock(Long productId, Integer quantity) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        int newStock = product.getStockQuantity() - quantity;
-        if (newStock < 0) {
+
+        if (productRepository.decrementStock(productId, quantity) == 0) {
             throw new RuntimeException("Insufficient stock for product: " + product.getName());
         }
-        
-        product.setStockQuantity(newStock);
-        productRepository.save(product);
+        afterCommit(() -> {
+            catalogCache.invalidateStock(product);
+            productFacetIndex.adjustStock(productId, -quantity);
+        });
+    }
+
+    // Takes stock for every cart line in a single conditional UPDATE; if any line is short nothing is
+    // taken and the surrounding transaction is rolled back
+    @Transactional
+    public void reserveStock(Collection<CartItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+
+        if (productRepository.decrementStock(quantities) != quantities.size()) {
+            throw new RuntimeException("Insufficient stock for one or more products in the cart");
+        }
+        List<Product> products = items.stream().map(CartItem::getProduct).collect(Collectors.toList());
+        afterCommit(() -> {
+            for (Product product : products) {
+                catalogCache.invalidateStock(product);
+            }
+            quantities.forEach((productId, quantity) -> productFacetIndex.adjustStock(productId, -quantity));
+        });
+    }
+
+    // Puts the stock of an order that will not be fulfilled back on the shelf
+    public void releaseStock(Collection<OrderItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, Product> products = new TreeMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            products.put(item.getProduct().getId(), item.getProduct());
+        }
+
+        quantities.forEach(productRepository::incrementStock);
+        afterCommit(() -> {
+            for (Product product : products.values()) {
+                catalogCache.invalidateStock(product);
+            }
+            quantities.forEach(productFacetIndex::adjustStock);
+        });
+    }
+
+    // In-memory views must not see changes that may still roll back, and a cache entry evicted before the commit
+    // could be refilled with the old row by a concurrent read
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
-} 
\ No newline at end of file
+}
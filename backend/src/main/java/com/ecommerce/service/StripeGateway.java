@@ -0,0 +1,337 @@
+package com.ecommerce.service;
+
+import com.ecommerce.util.CircuitBreaker;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.RequestOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// Single entry point for Stripe API calls. Every call gets per-operation timeouts and runs inside a
+// bulkhead and a circuit breaker; retrieves can additionally be hedged. Outcomes are timed per operation.
+// Calls run on the gateway's own threads and the caller waits no longer than callBoundMs: every attempt may spend
+// connect-timeout-ms plus the operation's read timeout, and the SDK sleeps up to 5 s before each of its
+// max-network-retries, so the defaults allow 31 s for a retrieve or a create and 40 s for a confirm. The read
+// timeout only limits the wait for each read, so a response trickling in could otherwise hold the caller far
+// longer. An abandoned call keeps its bulkhead slot until the SDK gives up on it.
+@Component
+public class StripeGateway {
+
+    public enum Operation {
+        CREATE_PAYMENT_INTENT, RETRIEVE_PAYMENT_INTENT, CONFIRM_PAYMENT_INTENT
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stripe.secret-key}")
+    private String stripeSecretKey;
+
+    // Points the SDK at another host, e.g. a local stub that simulates slow or failing responses
+    @Value("${app.stripe.api-base:}")
+    private String apiBase;
+
+    @Value("${app.stripe.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${app.stripe.bulkhead-wait-ms:500}")
+    private long bulkheadWaitMs;
+
+    @Value("${app.stripe.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.stripe.create-timeout-ms:5000}")
+    private int createTimeoutMs;
+
+    @Value("${app.stripe.retrieve-timeout-ms:5000}")
+    private int retrieveTimeoutMs;
+
+    @Value("${app.stripe.confirm-timeout-ms:8000}")
+    private int confirmTimeoutMs;
+
+    @Value("${app.stripe.max-network-retries:2}")
+    private int maxNetworkRetries;
+
+    @Value("${app.stripe.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.stripe.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    // A retrieve still running after this long is raced against a second one; 0 disables hedging
+    @Value("${app.stripe.hedge-after-ms:0}")
+    private long hedgeAfterMs;
+
+    // operation -> timers for success, client error (Stripe answered) and provider failure
+    private final Map<Operation, Timer[]> timers = new EnumMap<>(Operation.class);
+    private Counter bulkheadRejections;
+    private Counter breakerRejections;
+    private Counter hedges;
+
+    // On platform threads the bulkhead keeps a slow Stripe from tying up the whole Tomcat pool; with
+    // spring.threads.virtual.enabled=true (Java 21) it bounds concurrent Stripe traffic instead
+    private Semaphore stripeCalls;
+    private CircuitBreaker circuitBreaker;
+    private ExecutorService callExecutor;
+
+    @PostConstruct
+    public void init() {
+        Stripe.apiKey = stripeSecretKey;
+        if (!apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+        }
+        stripeCalls = new Semaphore(maxConcurrentCalls);
+        circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(breakerOpenMs));
+        registerMetrics();
+        // Unbounded, but every task holds a bulkhead slot, so there are never more than max-concurrent-calls busy
+        AtomicInteger threadCount = new AtomicInteger();
+        callExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stripe-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    // Pass an idempotency key for creates so that SDK retries and client resubmits reuse the same object
+    public <T> T call(Operation operation, String idempotencyKey, StripeCall<T> call) throws StripeException {
+        acquireSlot();
+        boolean releaseSlot = true;
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                breakerRejections.increment();
+                throw new PaymentUnavailableException("Payment provider is unavailable, please retry later");
+            }
+
+            RequestOptions options = options(operation, idempotencyKey);
+            Timer[] outcomes = timers.get(operation);
+            long start = System.nanoTime();
+            try {
+                // The slot belongs to the primary attempt and is freed when it finishes, even if the caller has
+                // stopped waiting or a hedge answered first
+                CompletableFuture<T> primary = submit(call, options);
+                primary.whenComplete((value, error) -> stripeCalls.release());
+                releaseSlot = false;
+                long deadline = start + TimeUnit.MILLISECONDS.toNanos(callBoundMs(operation));
+                T result = operation == Operation.RETRIEVE_PAYMENT_INTENT && hedgeAfterMs > 0
+                        ? hedged(primary, call, options, deadline)
+                        : awaitUntil(primary, deadline);
+                circuitBreaker.onSuccess();
+                outcomes[0].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (PaymentUnavailableException e) {
+                circuitBreaker.release();
+                throw e;
+            } catch (StripeException e) {
+                // Card declines and invalid requests mean Stripe answered; they must not open the circuit
+                if (isProviderFailure(e)) {
+                    circuitBreaker.onFailure();
+                    outcomes[2].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    circuitBreaker.onSuccess();
+                    outcomes[1].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                outcomes[2].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        } finally {
+            if (releaseSlot) {
+                stripeCalls.release();
+            }
+        }
+    }
+
+    private void registerMetrics() {
+        for (Operation operation : Operation.values()) {
+            String name = operation.name().toLowerCase(Locale.ROOT);
+            timers.put(operation, new Timer[] {
+                    callTimer(name, "success"),
+                    callTimer(name, "client_error"),
+                    callTimer(name, "provider_error")
+            });
+        }
+        bulkheadRejections = Counter.builder("stripe.rejections").tag("reason", "bulkhead_full").register(meterRegistry);
+        breakerRejections = Counter.builder("stripe.rejections").tag("reason", "circuit_open").register(meterRegistry);
+        hedges = Counter.builder("stripe.hedges").register(meterRegistry);
+        Gauge.builder("stripe.bulkhead.available", stripeCalls, Semaphore::availablePermits).register(meterRegistry);
+        // 0 closed, 1 open, 2 half-open
+        Gauge.builder("stripe.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal()).register(meterRegistry);
+        Gauge.builder("stripe.circuit.opened", circuitBreaker, CircuitBreaker::getTimesOpened).register(meterRegistry);
+    }
+
+    private Timer callTimer(String operation, String outcome) {
+        return Timer.builder("stripe.calls")
+                .description("Stripe API calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void acquireSlot() {
+        boolean acquired;
+        try {
+            acquired = stripeCalls.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentUnavailableException("Interrupted while waiting for the payment provider");
+        }
+        if (!acquired) {
+            bulkheadRejections.increment();
+            throw new PaymentUnavailableException("Payment provider is busy, please retry");
+        }
+    }
+
+    private RequestOptions options(Operation operation, String idempotencyKey) {
+        return RequestOptions.builder()
+                .setApiKey(stripeSecretKey)
+                .setConnectTimeout(connectTimeoutMs)
+                .setReadTimeout(readTimeoutMs(operation))
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .setIdempotencyKey(idempotencyKey)
+                .build();
+    }
+
+    private int readTimeoutMs(Operation operation) {
+        switch (operation) {
+            case CREATE_PAYMENT_INTENT:
+                return createTimeoutMs;
+            case RETRIEVE_PAYMENT_INTENT:
+                return retrieveTimeoutMs;
+            default:
+                return confirmTimeoutMs;
+        }
+    }
+
+    // The longest the SDK should take over one call: every attempt may use both timeouts in full, and each retry
+    // is preceded by a backoff sleep of at most HttpClient.maxNetworkRetriesDelay
+    long callBoundMs(Operation operation) {
+        return (long) (connectTimeoutMs + readTimeoutMs(operation)) * (maxNetworkRetries + 1)
+                + maxNetworkRetries * HttpClient.maxNetworkRetriesDelay.toMillis();
+    }
+
+    // Failures worth retrying later, as opposed to Stripe rejecting the request itself
+    static boolean isProviderFailure(StripeException e) {
+        Integer status = e.getStatusCode();
+        return e instanceof ApiConnectionException || status == null || status >= 500 || status == 429;
+    }
+
+    // Starts a second attempt if the first has not answered within hedge-after-ms and a spare slot is free;
+    // the first successful response wins. Neither wait outlasts the deadline the SDK would have respected on its own.
+    private <T> T hedged(CompletableFuture<T> primary, StripeCall<T> call, RequestOptions options, long deadline)
+            throws StripeException {
+        T result = await(primary, hedgeAfterMs);
+        if (result != null) {
+            return result;
+        }
+        if (!stripeCalls.tryAcquire()) {
+            return awaitUntil(primary, deadline);
+        }
+
+        hedges.increment();
+        CompletableFuture<T> hedge;
+        try {
+            hedge = submit(call, options);
+        } catch (RuntimeException e) {
+            stripeCalls.release();
+            throw e;
+        }
+        hedge.whenComplete((value, error) -> stripeCalls.release());
+
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        BiConsumer<T, Throwable> complete = (value, error) -> {
+            if (error == null) {
+                first.complete(value);
+            } else if (pending.decrementAndGet() == 0) {
+                first.completeExceptionally(error);
+            }
+        };
+        primary.whenComplete(complete);
+        hedge.whenComplete(complete);
+        return awaitUntil(first, deadline);
+    }
+
+    private <T> CompletableFuture<T> submit(StripeCall<T> call, RequestOptions options) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        callExecutor.execute(() -> {
+            try {
+                future.complete(call.call(options));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Waits up to timeoutMs; returns null on timeout
+    private static <T> T await(CompletableFuture<T> future, long timeoutMs) throws StripeException {
+        try {
+            return get(future, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        }
+    }
+
+    // Waits until the System.nanoTime() deadline; running out counts as a provider failure, like an SDK timeout
+    private static <T> T awaitUntil(CompletableFuture<T> future, long deadline) throws StripeException {
+        try {
+            return get(future, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ApiConnectionException("Payment provider did not answer before the call deadline");
+        }
+    }
+
+    private static <T> T get(CompletableFuture<T> future, long timeout, TimeUnit unit)
+            throws StripeException, TimeoutException {
+        try {
+            return future.get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentUnavailableException("Interrupted while waiting for the payment provider");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface StripeCall<T> {
+        T call(RequestOptions options) throws StripeException;
+    }
+}
@@ -0,0 +1,213 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.WebhookEvent;
+import com.ecommerce.model.WebhookEventStatus;
+import com.ecommerce.repository.WebhookEventRepository;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stripe webhooks are acknowledged as soon as they are stored in the webhook_events inbox;
+// a bounded worker pool then applies them in batches, each event in its own transaction
+@Service
+public class StripeWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripeWebhookService.class);
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.webhook.workers:4}")
+    private int workers;
+
+    @Value("${app.webhook.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    // Delay before the first retry; doubles with every further attempt
+    @Value("${app.webhook.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    // How long a claim protects an event; must be well above the time one event takes to apply
+    @Value("${app.webhook.claim-lease-ms:300000}")
+    private long claimLeaseMs;
+
+    private TransactionTemplate transaction;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        // At most one pending drain per worker; further wake-ups are dropped because a queued drain will see the new rows
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stripe-webhook-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Returns false when the event id has been seen before
+    public boolean receive(Event event, String payload) {
+        if (webhookEventRepository.existsByEventId(event.getId())) {
+            return false;
+        }
+        try {
+            webhookEventRepository.save(new WebhookEvent(event.getId(), event.getType(), payload));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        wakeUp();
+        return true;
+    }
+
+    public int replay(Collection<String> eventIds) {
+        int replayed = transaction.execute(status -> webhookEventRepository.replayByEventIds(eventIds, LocalDateTime.now()));
+        wakeUp();
+        return replayed;
+    }
+
+    public int replay(LocalDateTime from, LocalDateTime to) {
+        int replayed = transaction.execute(status -> webhookEventRepository.replayReceivedBetween(from, to, LocalDateTime.now()));
+        wakeUp();
+        return replayed;
+    }
+
+    // Safety net for events whose wake-up was dropped or that are waiting for a retry
+    @Scheduled(fixedDelayString = "${app.webhook.poll-interval-ms:1000}")
+    public void wakeUp() {
+        executor.execute(this::drain);
+    }
+
+    // Events claimed by a worker that died, on this instance or another, are picked up again once the lease runs out
+    @Scheduled(fixedDelayString = "${app.webhook.lease-check-interval-ms:60000}")
+    public void releaseExpiredClaims() {
+        LocalDateTime claimedBefore = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMs));
+        Integer released = transaction.execute(status -> webhookEventRepository.releaseExpiredClaims(claimedBefore));
+        if (released != null && released > 0) {
+            logger.warn("Released {} Stripe events whose claim expired", released);
+            wakeUp();
+        }
+    }
+
+    private void drain() {
+        List<WebhookEvent> batch;
+        do {
+            batch = webhookEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    WebhookEventStatus.RECEIVED, LocalDateTime.now(), Pageable.ofSize(batchSize));
+            for (WebhookEvent event : batch) {
+                Integer claimed = transaction.execute(status ->
+                        webhookEventRepository.claim(event.getId(), LocalDateTime.now()));
+                if (claimed != null && claimed == 1) {
+                    process(event);
+                }
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void process(WebhookEvent webhookEvent) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                handle(ApiResource.GSON.fromJson(webhookEvent.getPayload(), Event.class));
+                webhookEvent.setStatus(WebhookEventStatus.PROCESSED);
+                webhookEvent.setAttempts(webhookEvent.getAttempts() + 1);
+                webhookEvent.setProcessedAt(LocalDateTime.now());
+                webhookEvent.setClaimedAt(null);
+                webhookEvent.setLastError(null);
+                webhookEventRepository.save(webhookEvent);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Processing Stripe event {} failed", webhookEvent.getEventId(), e);
+            int attempts = webhookEvent.getAttempts() + 1;
+            long backoffMs = retryBackoffMs << Math.min(attempts - 1, 16);
+            webhookEvent.setAttempts(attempts);
+            webhookEvent.setStatus(attempts >= maxAttempts ? WebhookEventStatus.FAILED : WebhookEventStatus.RECEIVED);
+            webhookEvent.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+            webhookEvent.setClaimedAt(null);
+            webhookEvent.setLastError(truncate(e.getMessage()));
+            transaction.executeWithoutResult(status -> webhookEventRepository.save(webhookEvent));
+        }
+    }
+
+    private void handle(Event event) {
+        switch (event.getType()) {
+            case "payment_intent.succeeded":
+                handlePaymentIntentSucceeded(event);
+                break;
+            case "payment_intent.payment_failed":
+                handlePaymentIntentFailed(event);
+                break;
+            default:
+                logger.debug("Unhandled event type: {}", event.getType());
+        }
+    }
+
+    private void handlePaymentIntentSucceeded(Event event) {
+        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (paymentIntent != null) {
+            paymentService.updateCachedPaymentIntent(paymentIntent, event.getCreated());
+            String paymentIntentId = paymentIntent.getId();
+            orderService.getOrderByPaymentIntentId(paymentIntentId).ifPresent(order -> {
+                orderService.updatePaymentStatus(order.getId(), paymentIntentId, "succeeded");
+            });
+        }
+    }
+
+    private void handlePaymentIntentFailed(Event event) {
+        PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer().getObject().orElse(null);
+        if (paymentIntent != null) {
+            paymentService.updateCachedPaymentIntent(paymentIntent, event.getCreated());
+            String paymentIntentId = paymentIntent.getId();
+            orderService.getOrderByPaymentIntentId(paymentIntentId).ifPresent(order -> {
+                orderService.updatePaymentStatus(order.getId(), paymentIntentId, "failed");
+            });
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
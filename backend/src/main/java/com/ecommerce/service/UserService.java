@@ -2,23 +2,70 @@ package com.ecommerce.service;
 
 import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
+// Profile lookups on the authenticated request path are served from a bounded cache. Users are cached once,
+// by id; the email cache only maps an email to that id. Every write through this service drops the entries once it
+// has committed, so a read that races the write cannot put the old row back.
 @Service
 public class UserService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.user-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${app.user-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private Cache<Long, Optional<User>> usersById;
+    // Only hits are stored, so a user registered under an email is found straight away
+    private Cache<String, Long> userIdsByEmail;
+
+    @PostConstruct
+    public void init() {
+        usersById = newCache("users.byId");
+        userIdsByEmail = newCache("users.byEmail");
+    }
+
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return usersById.get(id, userRepository::findById);
     }
 
     public Optional<User> getUserByEmail(String email) {
+        Long id = userIdsByEmail.get(email, key -> userRepository.findByEmail(key)
+                .map(user -> {
+                    usersById.put(user.getId(), Optional.of(user));
+                    return user.getId();
+                })
+                .orElse(null));
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<User> user = getUserById(id);
+        if (user.isPresent() && email.equals(user.get().getEmail())) {
+            return user;
+        }
+        // The email moved to another user or the user is gone; ask the database
+        userIdsByEmail.invalidate(email);
         return userRepository.findByEmail(email);
     }
 
@@ -26,26 +73,70 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    @Transactional
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        afterCommit(() -> evict(saved.getId(), saved.getEmail()));
+        return saved;
     }
 
+    @Transactional
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        String previousEmail = user.getEmail();
 
         user.setName(userDetails.getName());
         user.setEmail(userDetails.getEmail());
         user.setImageUrl(userDetails.getImageUrl());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        afterCommit(() -> {
+            evict(id, previousEmail);
+            userIdsByEmail.invalidate(saved.getEmail());
+        });
+        return saved;
     }
 
+    @Transactional
     public void deleteUser(Long id) {
+        Optional<User> user = userRepository.findById(id);
         userRepository.deleteById(id);
+        afterCommit(() -> evict(id, user.map(User::getEmail).orElse(null)));
     }
 
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
-} 
\ No newline at end of file
+
+    private void evict(Long id, String email) {
+        if (id != null) {
+            usersById.invalidate(id);
+        }
+        if (email != null) {
+            userIdsByEmail.invalidate(email);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private <K, V> Cache<K, V> newCache(String name) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+}
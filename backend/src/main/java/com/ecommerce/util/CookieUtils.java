@@ -0,0 +1,44 @@
+package com.ecommerce.util;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+import java.time.Duration;
+
+public final class CookieUtils {
+
+    private CookieUtils() {
+    }
+
+    public static String get(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    // HttpOnly and SameSite=Lax: not readable from scripts, but still sent on the redirect back from the OAuth2 provider
+    public static void add(HttpServletResponse response, String name, String value, Duration maxAge, boolean secure) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    public static void delete(HttpServletResponse response, String name, boolean secure) {
+        add(response, name, "", Duration.ZERO, secure);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.util;
+
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CsvUtils {
+
+    // Bounds the memory one record can take, whether it is a single long line or a stray opening quote joining
+    // the rest of the input
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private CsvUtils() {
+    }
+
+    // Buffered reader for records or lines that fails as soon as one line passes the record cap, rather than
+    // letting readLine buffer all of it first
+    public static BufferedReader reader(Reader in) {
+        return new BufferedReader(new LineLimitReader(in));
+    }
+
+    // Reads one record, joining physical lines while a quoted field is still open, so values written by escape()
+    // with line breaks come back whole; line breaks inside them are returned as \n. Returns null at end of input.
+    // Records longer than the cap are rejected; only a reader from reader() rejects a single long line before
+    // it is in memory.
+    public static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        if (line.length() > MAX_RECORD_LENGTH) {
+            throw new IOException("CSV record longer than " + MAX_RECORD_LENGTH + " characters");
+        }
+        StringBuilder record = new StringBuilder(line);
+        int quotes = count(line, '"');
+        while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+            if (record.length() + line.length() > MAX_RECORD_LENGTH) {
+                throw new IOException("CSV record longer than " + MAX_RECORD_LENGTH + " characters; is a quote unbalanced?");
+            }
+            record.append('\n').append(line);
+            quotes += count(line, '"');
+        }
+        return record.toString();
+    }
+
+    // Splits one RFC 4180 record as returned by readRecord; quoted fields may contain commas, doubled quotes
+    // and line breaks
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int count(String text, char c) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    public static String row(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(escape(values[i]));
+        }
+        return line.toString();
+    }
+
+    // Counts characters since the last line break in the blocks BufferedReader pulls in, so the check costs a
+    // scan of each block rather than a call per character
+    private static final class LineLimitReader extends FilterReader {
+
+        private int lineLength;
+
+        LineLimitReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            for (int i = offset; i < offset + read; i++) {
+                count(buffer[i]);
+            }
+            return read;
+        }
+
+        private void count(char c) throws IOException {
+            if (c == '\n' || c == '\r') {
+                lineLength = 0;
+            } else if (++lineLength > MAX_RECORD_LENGTH) {
+                throw new IOException("Line longer than " + MAX_RECORD_LENGTH + " characters");
+            }
+        }
+    }
+}
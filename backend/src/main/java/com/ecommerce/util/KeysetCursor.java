@@ -0,0 +1,78 @@
+package com.ecommerce.util;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Opaque, URL-safe encoding of a keyset scroll position (the sort key values of the last row returned)
+public final class KeysetCursor {
+
+    // Room for a sort key of a few hundred characters plus the id; anything longer was not issued by encode
+    static final int MAX_LENGTH = 2048;
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+
+        StringBuilder raw = new StringBuilder();
+        for (Map.Entry<String, Object> key : keyset.getKeys().entrySet()) {
+            if (raw.length() > 0) {
+                raw.append('&');
+            }
+            raw.append(URLEncoder.encode(key.getKey(), StandardCharsets.UTF_8))
+                    .append('=')
+                    .append(URLEncoder.encode(String.valueOf(key.getValue()), StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String nextCursor(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        return encode(window.positionAt(window.size() - 1));
+    }
+
+    // 'types' maps every property of the current sort to a parser for its value; cursors from another sort are rejected
+    public static KeysetScrollPosition decode(String cursor, Map<String, Function<String, Object>> types) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        if (cursor.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String pair : raw.split("&")) {
+                int separator = pair.indexOf('=');
+                String property = URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8);
+                String value = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+                Function<String, Object> parser = types.get(property);
+                if (parser == null) {
+                    throw new IllegalArgumentException("Unknown cursor property: " + property);
+                }
+                keys.put(property, parser.apply(value));
+            }
+            if (keys.size() != types.size()) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
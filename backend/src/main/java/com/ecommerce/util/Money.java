@@ -0,0 +1,22 @@
+package com.ecommerce.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Prices are stored as BigDecimal with two decimals (USD). Sums are done in cents as plain longs and only
+// turned back into a BigDecimal at the API boundary.
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,56 @@
+-- Pooled id blocks for the rows written in batches. H2 only backs in-memory development and test databases,
+-- which are always migrated from empty, so the sequences start where Hibernate would start them.
+create sequence products_seq start with 1 increment by 50;
+create sequence cart_items_seq start with 1 increment by 50;
+create sequence orders_seq start with 1 increment by 50;
+create sequence order_items_seq start with 1 increment by 50;
+
+-- Inbox of verified Stripe webhook deliveries
+create table webhook_events (
+    id bigint generated by default as identity,
+    event_id varchar(255) not null,
+    type varchar(255) not null,
+    payload clob not null,
+    status varchar(255) not null check (status in ('RECEIVED','PROCESSING','PROCESSED','FAILED')),
+    attempts integer not null,
+    last_error varchar(1000),
+    received_at timestamp(6),
+    next_attempt_at timestamp(6) not null,
+    claimed_at timestamp(6),
+    processed_at timestamp(6),
+    primary key (id),
+    constraint uk_webhook_events_event_id unique (event_id)
+);
+
+create index idx_webhook_events_status_id on webhook_events (status, id);
+
+-- Append-only log of order status and payment status changes
+create table order_status_events (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    from_status varchar(255) check (from_status in ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED')),
+    to_status varchar(255) not null check (to_status in ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED')),
+    payment_status varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_order_status_events_order_id on order_status_events (order_id);
+
+-- PaymentIntent creates waiting to be relayed to Stripe, one per order
+create table payment_outbox (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    status varchar(255) not null check (status in ('PENDING','PROCESSING','COMPLETED','FAILED')),
+    attempts integer not null,
+    last_error varchar(1000),
+    idempotency_key varchar(255) not null,
+    created_at timestamp(6),
+    next_attempt_at timestamp(6) not null,
+    claimed_at timestamp(6),
+    processed_at timestamp(6),
+    primary key (id),
+    constraint uk_payment_outbox_order_id unique (order_id)
+);
+
+create index idx_payment_outbox_status_id on payment_outbox (status, id);
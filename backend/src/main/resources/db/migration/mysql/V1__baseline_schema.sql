@@ -0,0 +1,77 @@
+-- Schema as Hibernate generated it before migrations were introduced. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate) and only receive the later scripts.
+
+create table users (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    image_url varchar(255),
+    email_verified bit not null,
+    password varchar(255),
+    provider enum ('local','google','github'),
+    provider_id varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table products (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    description varchar(1000),
+    price decimal(38,2) not null,
+    stock_quantity integer not null,
+    image_url varchar(255),
+    category varchar(255) not null,
+    brand varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table carts (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_carts_user_id unique (user_id),
+    constraint fk_carts_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table cart_items (
+    id bigint not null auto_increment,
+    cart_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    primary key (id),
+    constraint fk_cart_items_cart foreign key (cart_id) references carts (id),
+    constraint fk_cart_items_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table orders (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    total_amount decimal(38,2) not null,
+    status enum ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED'),
+    shipping_address varchar(255),
+    billing_address varchar(255),
+    payment_intent_id varchar(255),
+    payment_status varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table order_items (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    unit_price decimal(38,2) not null,
+    primary key (id),
+    constraint fk_order_items_order foreign key (order_id) references orders (id),
+    constraint fk_order_items_product foreign key (product_id) references products (id)
+) engine=InnoDB;
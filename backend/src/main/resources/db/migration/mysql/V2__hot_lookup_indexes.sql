@@ -0,0 +1,22 @@
+-- Indexes for the lookups on the request path: orders by payment intent, by status and by user (both newest
+-- first), products by category and by brand, and cart lines by (cart, product). users.email and carts.user_id
+-- are already unique, and MySQL indexes foreign key columns itself, so order_items.order_id needs nothing here.
+
+-- Lines for the same product in one cart are merged into the oldest one, so that the unique constraint can be added
+update cart_items ci
+    join (select min(id) as keep_id, sum(quantity) as quantity
+          from cart_items group by cart_id, product_id having count(*) > 1) merged on ci.id = merged.keep_id
+set ci.quantity = merged.quantity;
+
+delete ci from cart_items ci
+    join (select cart_id, product_id, min(id) as keep_id
+          from cart_items group by cart_id, product_id having count(*) > 1) merged
+      on ci.cart_id = merged.cart_id and ci.product_id = merged.product_id and ci.id <> merged.keep_id;
+
+alter table cart_items add constraint uk_cart_items_cart_product unique (cart_id, product_id);
+
+create index idx_orders_payment_intent_id on orders (payment_intent_id);
+create index idx_orders_status_created_at on orders (status, created_at);
+create index idx_orders_user_created_at on orders (user_id, created_at);
+create index idx_products_category on products (category);
+create index idx_products_brand on products (brand);
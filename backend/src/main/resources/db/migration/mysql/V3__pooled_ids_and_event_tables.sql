@@ -0,0 +1,64 @@
+-- Pooled id blocks for the rows written in batches. MySQL has no sequences, so Hibernate keeps each one in a
+-- single-row table. The pooled optimizer hands out the 49 ids below the value it reads, so every table starts
+-- 50 above its current maximum id.
+create table products_seq (next_val bigint) engine=InnoDB;
+insert into products_seq select coalesce(max(id), 0) + 50 from products;
+
+create table cart_items_seq (next_val bigint) engine=InnoDB;
+insert into cart_items_seq select coalesce(max(id), 0) + 50 from cart_items;
+
+create table orders_seq (next_val bigint) engine=InnoDB;
+insert into orders_seq select coalesce(max(id), 0) + 50 from orders;
+
+create table order_items_seq (next_val bigint) engine=InnoDB;
+insert into order_items_seq select coalesce(max(id), 0) + 50 from order_items;
+
+-- Inbox of verified Stripe webhook deliveries
+create table webhook_events (
+    id bigint not null auto_increment,
+    event_id varchar(255) not null,
+    type varchar(255) not null,
+    payload longtext not null,
+    status enum ('RECEIVED','PROCESSING','PROCESSED','FAILED') not null,
+    attempts integer not null,
+    last_error varchar(1000),
+    received_at datetime(6),
+    next_attempt_at datetime(6) not null,
+    claimed_at datetime(6),
+    processed_at datetime(6),
+    primary key (id),
+    constraint uk_webhook_events_event_id unique (event_id)
+) engine=InnoDB;
+
+create index idx_webhook_events_status_id on webhook_events (status, id);
+
+-- Append-only log of order status and payment status changes
+create table order_status_events (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    from_status enum ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED'),
+    to_status enum ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED') not null,
+    payment_status varchar(255),
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_order_status_events_order_id on order_status_events (order_id);
+
+-- PaymentIntent creates waiting to be relayed to Stripe, one per order
+create table payment_outbox (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    status enum ('PENDING','PROCESSING','COMPLETED','FAILED') not null,
+    attempts integer not null,
+    last_error varchar(1000),
+    idempotency_key varchar(255) not null,
+    created_at datetime(6),
+    next_attempt_at datetime(6) not null,
+    claimed_at datetime(6),
+    processed_at datetime(6),
+    primary key (id),
+    constraint uk_payment_outbox_order_id unique (order_id)
+) engine=InnoDB;
+
+create index idx_payment_outbox_status_id on payment_outbox (status, id);
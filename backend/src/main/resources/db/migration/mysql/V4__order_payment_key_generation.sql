@@ -0,0 +1,3 @@
+-- Counts the 5xx answers Stripe gave to this order's PaymentIntent creates. The create idempotency key is derived
+-- from it, so every node sends the same key and a key Stripe keeps replaying a 5xx for is never reused.
+alter table orders add column payment_key_generation integer not null default 0;
@@ -0,0 +1,77 @@
+-- Schema as Hibernate generated it before migrations were introduced. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate) and only receive the later scripts.
+
+create table users (
+    id bigserial not null,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    image_url varchar(255),
+    email_verified boolean not null,
+    password varchar(255),
+    provider varchar(255) check (provider in ('local','google','github')),
+    provider_id varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create table products (
+    id bigserial not null,
+    name varchar(255) not null,
+    description varchar(1000),
+    price numeric(38,2) not null,
+    stock_quantity integer not null,
+    image_url varchar(255),
+    category varchar(255) not null,
+    brand varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table carts (
+    id bigserial not null,
+    user_id bigint not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_carts_user_id unique (user_id),
+    constraint fk_carts_user foreign key (user_id) references users (id)
+);
+
+create table cart_items (
+    id bigserial not null,
+    cart_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    primary key (id),
+    constraint fk_cart_items_cart foreign key (cart_id) references carts (id),
+    constraint fk_cart_items_product foreign key (product_id) references products (id)
+);
+
+create table orders (
+    id bigserial not null,
+    user_id bigint not null,
+    total_amount numeric(38,2) not null,
+    status varchar(255) check (status in ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED')),
+    shipping_address varchar(255),
+    billing_address varchar(255),
+    payment_intent_id varchar(255),
+    payment_status varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+);
+
+create table order_items (
+    id bigserial not null,
+    order_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    unit_price numeric(38,2) not null,
+    primary key (id),
+    constraint fk_order_items_order foreign key (order_id) references orders (id),
+    constraint fk_order_items_product foreign key (product_id) references products (id)
+);
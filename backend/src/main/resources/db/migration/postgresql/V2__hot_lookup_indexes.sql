@@ -0,0 +1,21 @@
+-- Indexes for the lookups on the request path: orders by payment intent, by status and by user (both newest
+-- first), order lines by order, products by category and by brand, and cart lines by (cart, product).
+-- users.email and carts.user_id are already unique.
+
+-- Lines for the same product in one cart are merged into the oldest one, so that the unique constraint can be added
+update cart_items ci
+set quantity = (select sum(d.quantity) from cart_items d where d.cart_id = ci.cart_id and d.product_id = ci.product_id)
+where ci.id = (select min(d.id) from cart_items d where d.cart_id = ci.cart_id and d.product_id = ci.product_id)
+  and exists (select 1 from cart_items d where d.cart_id = ci.cart_id and d.product_id = ci.product_id and d.id <> ci.id);
+
+delete from cart_items ci
+where ci.id > (select min(d.id) from cart_items d where d.cart_id = ci.cart_id and d.product_id = ci.product_id);
+
+alter table cart_items add constraint uk_cart_items_cart_product unique (cart_id, product_id);
+
+create index idx_orders_payment_intent_id on orders (payment_intent_id);
+create index idx_orders_status_created_at on orders (status, created_at);
+create index idx_orders_user_created_at on orders (user_id, created_at);
+create index idx_order_items_order_id on order_items (order_id);
+create index idx_products_category on products (category);
+create index idx_products_brand on products (brand);
@@ -0,0 +1,63 @@
+-- Pooled id blocks for the rows written in batches. The pooled optimizer hands out the 49 ids below the value it
+-- reads, so every sequence starts 50 above its table's current maximum id.
+create sequence products_seq start with 1 increment by 50;
+select setval('products_seq', coalesce(max(id), 0) + 50, false) from products;
+
+create sequence cart_items_seq start with 1 increment by 50;
+select setval('cart_items_seq', coalesce(max(id), 0) + 50, false) from cart_items;
+
+create sequence orders_seq start with 1 increment by 50;
+select setval('orders_seq', coalesce(max(id), 0) + 50, false) from orders;
+
+create sequence order_items_seq start with 1 increment by 50;
+select setval('order_items_seq', coalesce(max(id), 0) + 50, false) from order_items;
+
+-- Inbox of verified Stripe webhook deliveries
+create table webhook_events (
+    id bigserial not null,
+    event_id varchar(255) not null,
+    type varchar(255) not null,
+    payload text not null,
+    status varchar(255) not null check (status in ('RECEIVED','PROCESSING','PROCESSED','FAILED')),
+    attempts integer not null,
+    last_error varchar(1000),
+    received_at timestamp(6),
+    next_attempt_at timestamp(6) not null,
+    claimed_at timestamp(6),
+    processed_at timestamp(6),
+    primary key (id),
+    constraint uk_webhook_events_event_id unique (event_id)
+);
+
+create index idx_webhook_events_status_id on webhook_events (status, id);
+
+-- Append-only log of order status and payment status changes
+create table order_status_events (
+    id bigserial not null,
+    order_id bigint not null,
+    from_status varchar(255) check (from_status in ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED')),
+    to_status varchar(255) not null check (to_status in ('PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED','CANCELLED','REFUNDED')),
+    payment_status varchar(255),
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_order_status_events_order_id on order_status_events (order_id);
+
+-- PaymentIntent creates waiting to be relayed to Stripe, one per order
+create table payment_outbox (
+    id bigserial not null,
+    order_id bigint not null,
+    status varchar(255) not null check (status in ('PENDING','PROCESSING','COMPLETED','FAILED')),
+    attempts integer not null,
+    last_error varchar(1000),
+    idempotency_key varchar(255) not null,
+    created_at timestamp(6),
+    next_attempt_at timestamp(6) not null,
+    claimed_at timestamp(6),
+    processed_at timestamp(6),
+    primary key (id),
+    constraint uk_payment_outbox_order_id unique (order_id)
+);
+
+create index idx_payment_outbox_status_id on payment_outbox (status, id);
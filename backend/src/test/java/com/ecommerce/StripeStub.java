@@ -0,0 +1,174 @@
+package com.ecommerce;
+
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process stand-in for the PaymentIntent endpoints of the Stripe API. One instance serves the whole test JVM
+// and points the SDK at itself; tests set its latency and failures and read its counters, calling reset() first.
+// Like Stripe, a repeated Idempotency-Key gets the first response for that key replayed, errors other than 429 included.
+public final class StripeStub {
+
+    private static StripeStub instance;
+
+    private final HttpServer server;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger slowLeft = new AtomicInteger();
+    private final Map<String, Response> idempotentResponses = new ConcurrentHashMap<>();
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+
+    private volatile long latencyMs;
+    private volatile long slowLatencyMs;
+    private volatile int failureStatus = 500;
+    private volatile String status = "requires_payment_method";
+
+    private StripeStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stripe-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/payment_intents", this::handle);
+        server.start();
+    }
+
+    public static synchronized StripeStub instance() {
+        if (instance == null) {
+            try {
+                instance = new StripeStub();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Stripe.overrideApiBase("http://127.0.0.1:" + instance.server.getAddress().getPort());
+        return instance;
+    }
+
+    public StripeStub reset() {
+        latencyMs = 0;
+        failureStatus = 500;
+        status = "requires_payment_method";
+        failuresLeft.set(0);
+        slowLeft.set(0);
+        requests.set(0);
+        maxConcurrent.set(0);
+        idempotentResponses.clear();
+        idempotencyKeys.clear();
+        return this;
+    }
+
+    public StripeStub latency(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    // The next 'count' requests fail with the given HTTP status
+    public StripeStub fail(int count, int failureStatus) {
+        this.failureStatus = failureStatus;
+        failuresLeft.set(count);
+        return this;
+    }
+
+    // The next 'count' requests take latencyMs instead of the configured latency
+    public StripeStub slow(int count, long latencyMs) {
+        slowLatencyMs = latencyMs;
+        slowLeft.set(count);
+        return this;
+    }
+
+    public StripeStub status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent.get();
+    }
+
+    // Idempotency-Key of every request that carried one, in arrival order
+    public List<String> idempotencyKeys() {
+        return List.copyOf(idempotencyKeys);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+                if (key != null) {
+                    idempotencyKeys.add(key);
+                }
+                Response response = key == null ? respondTo(exchange) : idempotentResponses.get(key);
+                if (response == null) {
+                    response = respondTo(exchange);
+                    // Stripe rejects rate-limited requests before executing them, so their response is not saved
+                    if (key != null && response.status() != 429) {
+                        Response first = idempotentResponses.putIfAbsent(key, response);
+                        response = first != null ? first : response;
+                    }
+                }
+                write(exchange, response);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+
+    private Response respondTo(HttpExchange exchange) {
+        long sleepMs = slowLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0 ? slowLatencyMs : latencyMs;
+        if (sleepMs > 0) {
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            return new Response(failureStatus, "{\"error\":{\"type\":\"api_error\",\"message\":\"Simulated failure\"}}");
+        }
+        // /v1/payment_intents, /v1/payment_intents/{id} or /v1/payment_intents/{id}/confirm
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String id = path.length > 3 ? path[3] : "pi_test_" + sequence.incrementAndGet();
+        return new Response(200, "{\"id\":\"" + id + "\",\"object\":\"payment_intent\",\"amount\":0,\"currency\":\"usd\","
+                + "\"status\":\"" + status + "\",\"client_secret\":\"" + id + "_secret_test\",\"livemode\":false,\"metadata\":{}}");
+    }
+
+    private static void write(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Request-Id", "req_test");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Response(int status, String body) {
+    }
+}
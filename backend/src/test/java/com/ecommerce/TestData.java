@@ -0,0 +1,46 @@
+package com.ecommerce;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Creates users, products and orders through the same services the API uses
+@Component
+public class TestData {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    public User user() {
+        String id = UUID.randomUUID().toString();
+        return userRepository.save(new User("Test User " + id, id + "@example.com", null));
+    }
+
+    public Product product(int stock) {
+        return productRepository.save(new Product("Test product " + UUID.randomUUID(), "", new BigDecimal("10.00"),
+                stock, null, "Test", "Test"));
+    }
+
+    public Order order(User user, Product product, int quantity) {
+        cartService.addItemToCart(user.getId(), product.getId(), quantity);
+        return orderService.createOrderFromCart(user.getId(), "1 Test Way", "1 Test Way");
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HibernateConfigTest {
+
+    @Test
+    void mysqlPoolsFetchThroughAServerSideCursor() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/shop");
+
+        HibernateConfig.mysqlCursorFetch().postProcessBeforeInitialization(dataSource, "dataSource");
+
+        assertThat(dataSource.getDataSourceProperties()).containsEntry("useCursorFetch", "true");
+    }
+
+    @Test
+    void explicitSettingAndOtherDatabasesAreLeftAlone() {
+        HikariDataSource mysql = new HikariDataSource();
+        mysql.setJdbcUrl("jdbc:mysql://localhost:3306/shop");
+        mysql.addDataSourceProperty("useCursorFetch", "false");
+        HikariDataSource postgres = new HikariDataSource();
+        postgres.setJdbcUrl("jdbc:postgresql://localhost:5432/shop");
+
+        HibernateConfig.mysqlCursorFetch().postProcessBeforeInitialization(mysql, "dataSource");
+        HibernateConfig.mysqlCursorFetch().postProcessBeforeInitialization(postgres, "dataSource");
+
+        assertThat(mysql.getDataSourceProperties()).containsEntry("useCursorFetch", "false");
+        assertThat(postgres.getDataSourceProperties()).isEmpty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadTestSecurityConfigTest {
+
+    @Test
+    void filterIsCreatedAgainstAnInMemoryDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:loadtest-security", "sa", "");
+
+        assertThat(LoadTestSecurityConfig.create(dataSource)).isNotNull();
+    }
+
+    @Test
+    void persistentDatabaseStopsStartup(@TempDir Path directory) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:file:" + directory.resolve("shop"), "sa", "");
+
+        assertThatThrownBy(() -> LoadTestSecurityConfig.create(dataSource))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
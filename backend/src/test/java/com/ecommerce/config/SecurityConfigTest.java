@@ -0,0 +1,71 @@
+package com.ecommerce.config;
+
+import com.ecommerce.security.AdminAccounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousCallersCannotReachOperatorEndpoints() throws Exception {
+        mockMvc.perform(replay()).andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/api/orders/export")).andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void usersAreForbiddenFromOperatorEndpoints() throws Exception {
+        mockMvc.perform(replay()).andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/products/bulk").contentType("text/csv").content(""))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/products/export")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/export")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/events")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/orders/1/events")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void usersStillReachTheCatalogue() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = {"USER", "ADMIN"})
+    void adminsCanReplayWebhooks() throws Exception {
+        mockMvc.perform(replay()).andExpect(status().isOk());
+    }
+
+    @Test
+    void adminRoleFollowsTheConfiguredEmails() {
+        AdminAccounts adminAccounts = new AdminAccounts(List.of(" Ops@Example.com ", ""));
+
+        assertThat(AuthorityUtils.authorityListToSet(adminAccounts.authoritiesFor("ops@example.com")))
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(AuthorityUtils.authorityListToSet(adminAccounts.authoritiesFor("someone@example.com")))
+                .containsExactly("ROLE_USER");
+    }
+
+    private static RequestBuilder replay() {
+        return post("/api/payments/webhook/replay").contentType(MediaType.APPLICATION_JSON).content("{\"eventIds\": []}");
+    }
+}
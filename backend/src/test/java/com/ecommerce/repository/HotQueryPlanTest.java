@@ -0,0 +1,140 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.InMemoryCartStore;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the SQL Hibernate generates for each hot lookup through EXPLAIN on the migrated schema. H2 names the
+// index it reads in the plan, and "tableScan" when there is none.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.ecommerce.repository.HotQueryPlanTest$CapturedStatements",
+        "app.cart-store.flush-interval-ms=3600000"
+})
+class HotQueryPlanTest {
+
+    private static final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private InMemoryCartStore cartStore;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orderLookupsUseAnIndex() {
+        User user = testData.user();
+        PageRequest newestFirst = PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+
+        assertIndexed(() -> orderRepository.findByPaymentIntentId("pi_plan"));
+        assertIndexed(() -> orderRepository.findByStatus(OrderStatus.PENDING, newestFirst));
+        assertIndexed(() -> orderRepository.findByUserOrderByCreatedAtDesc(user));
+    }
+
+    @Test
+    void cartLineLookupUsesAnIndex() {
+        User user = testData.user();
+        Product product = testData.product(10);
+        cartService.addItemToCart(user.getId(), product.getId(), 1);
+        cartStore.flushDirty();
+        Cart cart = cartRepository.findByUserId(user.getId()).orElseThrow();
+
+        assertIndexed(() -> cartItemRepository.findByCartAndProduct(cart, product));
+    }
+
+    @Test
+    void catalogAndUserLookupsUseAnIndex() {
+        assertIndexed(() -> productRepository.findByCategory("Test"));
+        assertIndexed(() -> productRepository.findByBrand("Test"));
+        assertIndexed(() -> userRepository.findByEmail("plan@example.com"));
+    }
+
+    private void assertIndexed(Runnable query) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            query.run();
+        } finally {
+            captured.remove();
+        }
+
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql)).as(sql).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    // Parameters are bound with a sample of the type H2 infers for them; the plan does not depend on the value
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                statement.setObject(i, sample(parameters.getParameterType(i)));
+            }
+            return statement;
+        }, (resultSet, row) -> resultSet.getString(1)).get(0);
+    }
+
+    private static Object sample(int type) {
+        return switch (type) {
+            case Types.VARCHAR, Types.CHAR, Types.CLOB -> "plan";
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> Timestamp.valueOf(LocalDateTime.now());
+            default -> 1;
+        };
+    }
+
+    public static class CapturedStatements implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = captured.get();
+            if (statements != null && sql.trim().toLowerCase().startsWith("select")) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
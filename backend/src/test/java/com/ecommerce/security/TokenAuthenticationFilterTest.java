@@ -0,0 +1,56 @@
+package com.ecommerce.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenAuthenticationFilterTest {
+
+    private final TokenService tokenService = TokenServiceTest.tokenService(Base64.getEncoder().encodeToString(new byte[32]));
+    private final TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void bearerTokenAuthenticatesTheRequest() throws Exception {
+        String token = tokenService.issue(TokenServiceTest.principal(42L, "user@example.com"));
+
+        Authentication authentication = filter("Bearer " + token);
+
+        assertThat(((UserPrincipal) authentication.getPrincipal()).getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void malformedHeadersLeaveTheRequestUnauthenticated() throws Exception {
+        String token = tokenService.issue(TokenServiceTest.principal(42L, "user@example.com"));
+
+        assertThat(filter("Bearer ")).isNull();
+        assertThat(filter("Bearer not.a.token")).isNull();
+        assertThat(filter("Bearer " + token + ".extra")).isNull();
+        assertThat(filter("Basic " + token)).isNull();
+    }
+
+    private Authentication filter(String authorization) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,92 @@
+package com.ecommerce.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenServiceTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEXT_KEY =
+            Base64.getEncoder().encodeToString("another 32 byte long signing key".getBytes(StandardCharsets.US_ASCII));
+
+    @Test
+    void issuedTokenVerifiesToTheSamePrincipal() {
+        TokenService tokenService = tokenService(KEY);
+
+        UserPrincipal principal = tokenService.verify(tokenService.issue(principal(42L, "ops@example.com")));
+
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getEmail()).isEqualTo("ops@example.com");
+        assertThat(AuthorityUtils.authorityListToSet(principal.getAuthorities()))
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        TokenService tokenService = tokenService(KEY);
+        String token = tokenService.issue(principal(42L, "user@example.com"));
+        int dot = token.indexOf('.');
+        String otherBody = tokenService.issue(principal(43L, "user@example.com")).split("\\.")[0];
+        char first = token.charAt(dot + 1);
+
+        assertThat(tokenService.verify(token.substring(0, dot + 1) + (first == 'A' ? 'B' : 'A') + token.substring(dot + 2)))
+                .isNull();
+        assertThat(tokenService.verify(otherBody + token.substring(dot))).isNull();
+        assertThat(tokenService.verify(token.substring(0, dot))).isNull();
+        assertThat(tokenService.verify("not a token")).isNull();
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        TokenService tokenService = tokenService(KEY);
+        byte[] subject = "42:user@example.com".getBytes(StandardCharsets.UTF_8);
+
+        String expired = tokenService.sign(TokenService.Purpose.AUTHENTICATION, subject, Duration.ofSeconds(-1));
+
+        assertThat(tokenService.verify(expired)).isNull();
+    }
+
+    @Test
+    void previousKeysStillVerifyAfterARotation() {
+        String token = tokenService(KEY).issue(principal(42L, "user@example.com"));
+
+        assertThat(tokenService(NEXT_KEY, KEY).verify(token)).isNotNull();
+        assertThat(tokenService(NEXT_KEY).verify(token)).isNull();
+    }
+
+    @Test
+    void tokensOnlyVerifyForThePurposeTheyWereSignedFor() {
+        TokenService tokenService = tokenService(KEY);
+        byte[] subject = "42:user@example.com".getBytes(StandardCharsets.UTF_8);
+        String authorizationRequest =
+                tokenService.sign(TokenService.Purpose.AUTHORIZATION_REQUEST, subject, Duration.ofMinutes(5));
+        String authentication = tokenService.issue(principal(42L, "user@example.com"));
+
+        assertThat(tokenService.verify(authorizationRequest)).isNull();
+        assertThat(tokenService.unsign(TokenService.Purpose.AUTHORIZATION_REQUEST, authentication)).isNull();
+        assertThat(tokenService.unsign(TokenService.Purpose.AUTHORIZATION_REQUEST, authorizationRequest)).isEqualTo(subject);
+    }
+
+    static TokenService tokenService(String secret, String... previousSecrets) {
+        TokenService tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "mode", "token");
+        ReflectionTestUtils.setField(tokenService, "secret", secret);
+        ReflectionTestUtils.setField(tokenService, "previousSecrets", List.of(previousSecrets));
+        ReflectionTestUtils.setField(tokenService, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(tokenService, "adminAccounts", new AdminAccounts(List.of("ops@example.com")));
+        tokenService.init();
+        return tokenService;
+    }
+
+    static UserPrincipal principal(Long id, String email) {
+        return new UserPrincipal(id, email, null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CartServiceTest {
+
+    private static final Pattern TOTAL = Pattern.compile("\"total\":([^,}]+)");
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Clients have always received 0 for an empty cart and two decimals otherwise
+    @Test
+    void totalIsZeroForAnEmptyCartAndTwoDecimalsOtherwise() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(5);
+
+        assertThat(total(user)).isEqualTo("0");
+        assertThat(total(cartService.getCartByUserId(user.getId()))).isEqualTo("0");
+
+        cartService.addItemToCart(user.getId(), product.getId(), 2);
+        assertThat(total(user)).isEqualTo("20.00");
+
+        cartService.removeItemFromCart(user.getId(), product.getId());
+        assertThat(total(user)).isEqualTo("0");
+    }
+
+    private String total(User user) throws Exception {
+        return total(cartService.getCartView(user.getId()));
+    }
+
+    // The number exactly as serialized for the API; a parsed node would normalize its scale
+    private String total(Object cart) throws Exception {
+        Matcher total = TOTAL.matcher(objectMapper.writeValueAsString(cart));
+        assertThat(total.find()).isTrue();
+        return total.group(1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.service;
+
+import com.ecommerce.StripeStub;
+import com.ecommerce.TestData;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.PaymentOutboxEntry;
+import com.ecommerce.model.PaymentOutboxStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.checkout.retry-backoff-ms=100",
+        "app.stripe.max-network-retries=0"
+})
+class CheckoutServiceTest {
+
+    private static final StripeStub stripe = StripeStub.instance();
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @BeforeEach
+    void resetStub() {
+        stripe.reset();
+    }
+
+    // Stripe replays a stored 5xx for the same key, so retrying with the first key would fail until the order is cancelled
+    @Test
+    void createIsRetriedWithAFreshKeyAfterA5xx() throws Exception {
+        stripe.fail(1, 500);
+        Order order = checkout();
+
+        poll(() -> outbox(order).getStatus() == PaymentOutboxStatus.COMPLETED);
+        assertThat(outbox(order).getAttempts()).isEqualTo(2);
+        assertThat(stripe.idempotencyKeys()).hasSize(2).doesNotHaveDuplicates()
+                .first().isEqualTo(PaymentService.paymentIntentKey(order.getId()));
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getPaymentIntentId()).isNotNull();
+    }
+
+    @Test
+    void createKeepsItsKeyAfterAFailureStripeDidNotAnswer() throws Exception {
+        stripe.fail(1, 429);
+        Order order = checkout();
+
+        poll(() -> outbox(order).getStatus() == PaymentOutboxStatus.COMPLETED);
+        assertThat(stripe.idempotencyKeys()).hasSize(2)
+                .containsOnly(PaymentService.paymentIntentKey(order.getId()));
+    }
+
+    @Test
+    void onlyClaimsOlderThanTheLeaseAreReleased() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(10);
+        PaymentOutboxEntry abandoned = claimed(testData.order(user, product, 1).getId(), LocalDateTime.now().minusMinutes(10));
+        PaymentOutboxEntry inFlight = claimed(testData.order(user, product, 1).getId(), LocalDateTime.now().minusSeconds(1));
+
+        checkoutService.releaseExpiredClaims();
+
+        poll(() -> paymentOutboxRepository.findById(abandoned.getId()).orElseThrow().getStatus() == PaymentOutboxStatus.COMPLETED);
+        assertThat(paymentOutboxRepository.findById(inFlight.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentOutboxStatus.PROCESSING);
+        assertThat(orderRepository.findById(inFlight.getOrderId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    private Order checkout() {
+        User user = testData.user();
+        Product product = testData.product(10);
+        cartService.addItemToCart(user.getId(), product.getId(), 1);
+        return checkoutService.checkout(user.getId(), "1 Test Way", "1 Test Way");
+    }
+
+    private PaymentOutboxEntry claimed(Long orderId, LocalDateTime claimedAt) {
+        PaymentOutboxEntry entry = new PaymentOutboxEntry(orderId, PaymentService.paymentIntentKey(orderId));
+        entry.setStatus(PaymentOutboxStatus.PROCESSING);
+        entry.setClaimedAt(claimedAt);
+        return paymentOutboxRepository.save(entry);
+    }
+
+    private PaymentOutboxEntry outbox(Order order) {
+        return paymentOutboxRepository.findByOrderId(order.getId()).orElseThrow();
+    }
+
+    private static void poll(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
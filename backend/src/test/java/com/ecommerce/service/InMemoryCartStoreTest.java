@@ -0,0 +1,88 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One pooled connection: a checkout holding it must never wait on a cart lock held by someone waiting for it.
+// Migrations need two connections, so Flyway connects to the same database outside the pool.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart-store-test;DB_CLOSE_DELAY=-1",
+        "spring.flyway.url=jdbc:h2:mem:cart-store-test;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=10000",
+        "app.cart-store.flush-interval-ms=3600000"
+})
+class InMemoryCartStoreTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InMemoryCartStore cartStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void checkoutAndWriteBehindOfTheSameCartDoNotDeadlock() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(10);
+        cartService.addItemToCart(user.getId(), product.getId(), 2);
+
+        CountDownLatch connectionHeld = new CountDownLatch(1);
+        CompletableFuture<Order> checkout = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    userRepository.findById(user.getId());
+                    connectionHeld.countDown();
+                    sleep(300);
+                    return orderService.createOrderFromCart(user.getId(), "1 Test Way", "1 Test Way");
+                }));
+        connectionHeld.await();
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(cartStore::flushDirty);
+
+        // Well inside the pool timeout, which is what ends a deadlock here
+        Order order = checkout.get(5, TimeUnit.SECONDS);
+        flush.get(20, TimeUnit.SECONDS);
+
+        assertThat(orderRepository.findById(order.getId())).isPresent();
+        // The write-behind pass must not put the checked-out lines back
+        cartStore.flushDirty();
+        assertThat(cartService.getCartView(user.getId()).items()).isEmpty();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
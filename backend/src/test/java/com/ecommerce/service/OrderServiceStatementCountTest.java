@@ -0,0 +1,82 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Scheduled passes are pushed out so the session factory statistics only see the checkout under test
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.cart-store.flush-interval-ms=3600000",
+        "app.checkout.poll-interval-ms=3600000",
+        "app.webhook.poll-interval-ms=3600000"
+})
+class OrderServiceStatementCountTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InMemoryCartStore cartStore;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void checkoutRunsTheSameNumberOfStatementsWhateverTheCartSize() {
+        // The pooled optimizer reads each sequence twice before it holds a block of 50 ids; two warm-up
+        // checkouts take both reads, and the 41 lines below stay inside that block
+        checkout(1);
+        checkout(1);
+        for (int lines : new int[] {1, 10, 30}) {
+            checkout(lines);
+
+            // Cart fetch, stock update, order insert, one batched insert for all lines, status event insert, cart delete
+            assertThat(statistics.getPrepareStatementCount()).as("statements for %d lines", lines).isEqualTo(6);
+            assertThat(statistics.getEntityInsertCount()).as("inserts for %d lines", lines).isEqualTo(2 + lines);
+        }
+    }
+
+    private void checkout(int lines) {
+        User user = testData.user();
+        for (int i = 0; i < lines; i++) {
+            Product product = testData.product(100);
+            cartService.addItemToCart(user.getId(), product.getId(), 1);
+        }
+        // Write the cart first so the count covers checkout only, not the write-behind pass
+        cartStore.flushDirty();
+
+        statistics.clear();
+        orderService.createOrderFromCart(user.getId(), "1 Test Way", "1 Test Way");
+    }
+
+    // The cart query joins users, so an unknown user now looks like a user without a cart
+    @Test
+    void unknownUserIsReportedAsAnEmptyCart() {
+        assertThatThrownBy(() -> orderService.createOrderFromCart(Long.MAX_VALUE, "1 Test Way", "1 Test Way"))
+                .hasMessage("Cannot create order from empty cart");
+    }
+}
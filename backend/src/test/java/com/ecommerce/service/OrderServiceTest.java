@@ -0,0 +1,44 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.dto.OrderSummary;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private OrderService orderService;
+
+    // The order history page reads these summaries instead of the full orders
+    @Test
+    void summariesCarryWhatTheOrderHistoryShows() {
+        User user = testData.user();
+        Product product = testData.product(100);
+        Order first = testData.order(user, product, 2);
+        Order second = testData.order(user, product, 1);
+
+        List<OrderSummary> summaries = orderService.getOrderSummariesByUserId(user.getId());
+
+        assertThat(summaries).extracting(OrderSummary::id).containsExactly(second.getId(), first.getId());
+        assertThat(summaries.get(1).shippingAddress()).isEqualTo("1 Test Way");
+        assertThat(summaries.get(1).items()).singleElement().satisfies(line -> {
+            assertThat(line.id()).isNotNull();
+            assertThat(line.productName()).isEqualTo(product.getName());
+            assertThat(line.quantity()).isEqualTo(2);
+            assertThat(line.unitPrice()).isEqualByComparingTo(product.getPrice());
+        });
+    }
+}
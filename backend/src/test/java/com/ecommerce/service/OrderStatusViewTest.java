@@ -0,0 +1,186 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.dto.StatusCount;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.OrderStatusEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderStatusEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.orders.events.safety-window-ms=1000",
+        "app.orders.view.poll-interval-ms=100"
+})
+class OrderStatusViewTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentStatusChangesKeepCountsAndQueuesInStepWithTheTable() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(1000);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            orderIds.add(testData.order(user, product, 1).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (Long orderId : orderIds) {
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> confirm = executor.submit(() -> {
+                    start.await();
+                    return orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED);
+                });
+                Future<?> cancel = executor.submit(() -> {
+                    start.await();
+                    return orderService.updateOrderStatus(orderId, OrderStatus.CANCELLED);
+                });
+                confirm.get(10, TimeUnit.SECONDS);
+                cancel.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<OrderStatus, Long> expected = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            expected.put(status, 0L);
+        }
+        for (StatusCount count : orderRepository.countByStatus()) {
+            expected.put(count.status(), count.count());
+        }
+        assertThat(orderService.getStatusCounts()).isEqualTo(expected);
+
+        for (Long orderId : orderIds) {
+            List<OrderStatusEvent> history = orderService.getStatusHistory(orderId);
+            // Every transition starts where the previous one ended
+            for (int i = 1; i < history.size(); i++) {
+                assertThat(history.get(i).getFromStatus()).isEqualTo(history.get(i - 1).getToStatus());
+            }
+        }
+        for (OrderStatus status : OrderStatusView.QUEUED_STATUSES) {
+            List<Long> queued = orderService.getOrderQueue(status, Integer.MAX_VALUE).stream().map(Order::getId).toList();
+            assertThat(new HashSet<>(queued)).isEqualTo(new HashSet<>(orderRepository.findIdsByStatus(status)));
+        }
+    }
+
+    // Another node writes the order and its event; this node only learns of it from the log
+    @Test
+    void changesMadeOnAnotherNodeReachTheViewThroughTheLog() throws Exception {
+        Order order = testData.order(testData.user(), testData.product(10), 1);
+        long shipped = orderService.getStatusCounts().get(OrderStatus.SHIPPED);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE orders SET status = 'SHIPPED' WHERE id = ?", order.getId());
+            orderStatusEventRepository.save(new OrderStatusEvent(order.getId(), OrderStatus.PENDING, OrderStatus.SHIPPED, null));
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (orderService.getStatusCounts().get(OrderStatus.SHIPPED) == shipped) {
+            assertThat(System.nanoTime()).as("event not applied in time").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+        assertThat(orderService.getStatusCounts().get(OrderStatus.SHIPPED)).isEqualTo(shipped + 1);
+        assertThat(orderService.getOrderQueue(OrderStatus.SHIPPED, Integer.MAX_VALUE)).extracting(Order::getId)
+                .contains(order.getId());
+        assertThat(orderService.getOrderQueue(OrderStatus.PENDING, Integer.MAX_VALUE)).extracting(Order::getId)
+                .doesNotContain(order.getId());
+
+        // Events applied on commit here are not applied a second time when the tail reaches them
+        orderService.updateOrderStatus(order.getId(), OrderStatus.DELIVERED);
+        Thread.sleep(1500);
+        assertThat(orderService.getStatusCounts().get(OrderStatus.SHIPPED)).isEqualTo(shipped);
+    }
+
+    @Test
+    void tailingConsumerDoesNotSkipEventsThatCommitOutOfIdOrder() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(1000);
+        Order slow = testData.order(user, product, 1);
+        Order fast = testData.order(user, product, 1);
+        Thread.sleep(1200);
+        long position = orderService.getLastStatusEventId();
+        List<OrderStatusEvent> events = orderService.getStatusEventsAfter(position, 1000);
+        if (!events.isEmpty()) {
+            position = events.get(events.size() - 1).getId();
+        }
+
+        // The slow transaction inserts its event first and commits after the fast one
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread slowTransaction = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.updateOrderStatus(slow.getId(), OrderStatus.CONFIRMED);
+            inserted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slowTransaction.start();
+        inserted.await();
+        orderService.updateOrderStatus(fast.getId(), OrderStatus.CONFIRMED);
+
+        // A consumer polling while the slow transaction is open must not move past its event
+        List<OrderStatusEvent> seen = new ArrayList<>();
+        position = poll(position, seen, 300);
+        assertThat(seen).isEmpty();
+        release.countDown();
+        slowTransaction.join();
+        poll(position, seen, 1500);
+
+        assertThat(seen).extracting(OrderStatusEvent::getOrderId).containsExactly(slow.getId(), fast.getId());
+    }
+
+    private long poll(long position, List<OrderStatusEvent> seen, long durationMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + durationMs;
+        while (System.currentTimeMillis() < deadline) {
+            for (OrderStatusEvent event : orderService.getStatusEventsAfter(position, 1000)) {
+                seen.add(event);
+                position = event.getId();
+            }
+            Thread.sleep(20);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.service;
+
+import com.ecommerce.StripeStub;
+import com.ecommerce.TestData;
+import com.ecommerce.model.Order;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.stripe.intent-cache.ttl-seconds=60",
+        "app.stripe.max-network-retries=0"
+})
+class PaymentServiceTest {
+
+    private static final StripeStub stripe = StripeStub.instance();
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TestData testData;
+
+    @BeforeEach
+    void resetStub() {
+        stripe.reset();
+    }
+
+    @Test
+    void replayedOlderWebhookDoesNotOverwriteNewerState() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        paymentService.updateCachedPaymentIntent(intent("pi_replay", "succeeded"), now);
+        paymentService.updateCachedPaymentIntent(intent("pi_replay", "requires_payment_method"), now - 60);
+
+        assertThat(paymentService.retrievePaymentIntent("pi_replay").getStatus()).isEqualTo("succeeded");
+        assertThat(stripe.requests()).isZero();
+    }
+
+    @Test
+    void retrieveStartedBeforeAWebhookDoesNotPutItsOlderAnswerBack() throws Exception {
+        stripe.latency(1500).status("processing");
+        CompletableFuture<PaymentIntent> retrieve = CompletableFuture.supplyAsync(() -> {
+            try {
+                return paymentService.retrievePaymentIntent("pi_race");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(300);
+        paymentService.updateCachedPaymentIntent(intent("pi_race", "succeeded"), System.currentTimeMillis() / 1000);
+
+        assertThat(retrieve.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo("processing");
+        assertThat(paymentService.retrievePaymentIntent("pi_race").getStatus()).isEqualTo("succeeded");
+        assertThat(stripe.requests()).isEqualTo(1);
+    }
+
+    // The /create-payment-intent endpoint always passes the order's key; Stripe would replay the 5xx for it. The
+    // next key comes from the order row, so another node, or this one after a restart, sends the same one.
+    @Test
+    void createAfterA5xxIsSentUnderTheNextKey() throws Exception {
+        Order order = order();
+        String key = PaymentService.paymentIntentKey(order.getId());
+        stripe.fail(1, 500);
+
+        assertThatThrownBy(() -> paymentService.createPaymentIntent(order)).isInstanceOf(StripeException.class);
+        assertThat(paymentService.createPaymentIntent(order).getId()).isNotNull();
+        assertThat(paymentService.createPaymentIntent(order).getId()).isNotNull();
+
+        assertThat(stripe.idempotencyKeys()).containsExactly(key, key + "-1", key + "-1");
+    }
+
+    @Test
+    void createKeepsItsKeyAfterAClientError() throws Exception {
+        Order order = order();
+        stripe.fail(1, 400);
+
+        assertThatThrownBy(() -> paymentService.createPaymentIntent(order)).isInstanceOf(StripeException.class);
+        assertThatThrownBy(() -> paymentService.createPaymentIntent(order)).isInstanceOf(StripeException.class);
+
+        assertThat(stripe.idempotencyKeys()).containsOnly(PaymentService.paymentIntentKey(order.getId()));
+        assertThat(stripe.requests()).isEqualTo(2);
+    }
+
+    private Order order() {
+        return testData.order(testData.user(), testData.product(10), 1);
+    }
+
+    private static PaymentIntent intent(String id, String status) {
+        PaymentIntent paymentIntent = new PaymentIntent();
+        paymentIntent.setId(id);
+        paymentIntent.setStatus(status);
+        return paymentIntent;
+    }
+}
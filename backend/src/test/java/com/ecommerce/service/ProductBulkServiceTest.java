@@ -0,0 +1,59 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductBulkService.BulkFormat;
+import com.ecommerce.service.ProductBulkService.BulkImportResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductBulkServiceTest {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void csvExportImportsBackUnchanged() throws Exception {
+        String description = "First line, with a comma\nSecond line with \"quotes\"";
+        Product product = productRepository.save(new Product("Round trip " + UUID.randomUUID(), description,
+                new BigDecimal("12.50"), 7, null, "Test", "Test"));
+
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        productBulkService.exportProducts(export, BulkFormat.CSV);
+        long products = productRepository.count();
+
+        BulkImportResult result = productBulkService.importProducts(
+                new ByteArrayInputStream(export.toByteArray()), BulkFormat.CSV);
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getUpdated()).isEqualTo(products);
+        assertThat(result.getCreated()).isZero();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getDescription()).isEqualTo(description);
+    }
+
+    @Test
+    void errorsPointAtTheFirstLineOfAMultiLineRecord() throws Exception {
+        String csv = "name,description,price,stockQuantity,category\n"
+                + "Good,\"spans\ntwo lines\",1.00,1,Test\n"
+                + "Bad,\"also\nspans\",-1,1,Test\n";
+
+        BulkImportResult result = productBulkService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BulkFormat.CSV);
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> assertThat(error.line()).isEqualTo(4));
+    }
+}
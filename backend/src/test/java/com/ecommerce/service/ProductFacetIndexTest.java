@@ -0,0 +1,99 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductFacetIndexTest {
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void priceRangeCoversSortedAddedAndRepricedProducts() {
+        String category = uniqueCategory();
+        Product cheap = product(category, "5.00", 1);
+        Product middle = product(category, "10.00", 1);
+        Product dear = product(category, "20.00", 1);
+        productFacetIndex.rebuild();
+
+        Product added = productService.saveProduct(new Product("Added", "", new BigDecimal("12.50"), 1, null, category, "Test"));
+        dear.setPrice(new BigDecimal("9.99"));
+        productService.saveProduct(dear);
+
+        assertThat(ids(category, "9.99", "12.50")).containsExactly(middle.getId(), dear.getId(), added.getId());
+        assertThat(ids(category, "9.995", "10.001")).containsExactly(middle.getId());
+        assertThat(ids(category, null, "5.00")).containsExactly(cheap.getId());
+        assertThat(ids(category, "12.51", null)).isEmpty();
+    }
+
+    @Test
+    void refreshPicksUpStockChangedOnAnotherNode() {
+        String category = uniqueCategory();
+        Product product = product(category, "10.00", 5);
+        productFacetIndex.rebuild();
+
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 0 WHERE id = ?", product.getId());
+        assertThat(query(category, null, null, true).totalMatches()).isEqualTo(1);
+
+        productFacetIndex.refresh();
+
+        assertThat(query(category, null, null, true).totalMatches()).isZero();
+    }
+
+    @Test
+    void deletedProductsAreCompactedAwayOnceTooManyAreStale() {
+        productFacetIndex.rebuild();
+        String category = uniqueCategory();
+        List<Product> products = new ArrayList<>();
+        for (long i = productRepository.count(); i >= 0; i--) {
+            products.add(productService.saveProduct(new Product("Doomed", "", new BigDecimal("1.00"), 1, null, category, "Test")));
+        }
+        productFacetIndex.rebuild();
+
+        products.forEach(product -> productService.deleteProduct(product.getId()));
+        assertThat(productFacetIndex.staleFraction()).isGreaterThan(ProductFacetIndex.MAX_STALE_FRACTION);
+
+        productFacetIndex.compactIfStale();
+
+        assertThat(productFacetIndex.staleFraction()).isZero();
+        assertThat(query(category, null, null, false).totalMatches()).isZero();
+    }
+
+    private Product product(String category, String price, int stock) {
+        return productRepository.save(new Product("Facet " + price, "", new BigDecimal(price), stock, null, category, "Test"));
+    }
+
+    private List<Long> ids(String category, String minPrice, String maxPrice) {
+        return query(category, minPrice, maxPrice, false).productIds();
+    }
+
+    private ProductFacetIndex.FacetResult query(String category, String minPrice, String maxPrice, boolean inStockOnly) {
+        return productFacetIndex.query(category, null, minPrice != null ? new BigDecimal(minPrice) : null,
+                maxPrice != null ? new BigDecimal(maxPrice) : null, inStockOnly, 0, 100);
+    }
+
+    private static String uniqueCategory() {
+        return "Facets " + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductServiceStockTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Product scarce = testData.product(STOCK);
+        Product plentiful = testData.product(10_000);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        // Both lines are taken together or not at all
+                        productService.reserveStock(List.of(new CartItem(null, scarce, 1), new CartItem(null, plentiful, 1)));
+                        successes.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejections.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int remaining = productRepository.findById(scarce.getId()).orElseThrow().getStockQuantity();
+        assertThat(remaining).isGreaterThanOrEqualTo(0);
+        assertThat(successes.get()).isEqualTo(STOCK);
+        assertThat(remaining).isZero();
+        assertThat(rejections.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - STOCK);
+        assertThat(productRepository.findById(plentiful.getId()).orElseThrow().getStockQuantity()).isEqualTo(10_000 - STOCK);
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void rolledBackUpdateIsNotIndexedOrCached() {
+        Product product = testData.product(5);
+        String newName = "Renamed" + UUID.randomUUID().toString().replace("-", "");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), details(product, newName));
+            status.setRollbackOnly();
+        });
+
+        assertThat(productSearchIndex.search(newName)).doesNotContain(product.getId());
+        assertThat(productService.getProductById(product.getId()).orElseThrow().getName()).isEqualTo(product.getName());
+    }
+
+    // A read between the update and its commit still sees the old row; the eviction must come after it
+    @Test
+    void readDuringAnUpdateDoesNotLeaveTheOldRowCached() {
+        Product product = testData.product(5);
+        String newName = "Renamed " + UUID.randomUUID();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), details(product, newName));
+            Product concurrentRead = CompletableFuture.supplyAsync(() -> productService.getProductById(product.getId()))
+                    .orTimeout(10, TimeUnit.SECONDS).join().orElseThrow();
+            assertThat(concurrentRead.getName()).isEqualTo(product.getName());
+        });
+
+        assertThat(productService.getProductById(product.getId()).orElseThrow().getName()).isEqualTo(newName);
+    }
+
+    // Hibernate sets the price field directly on refresh, so the cached minor units must follow it
+    @Test
+    void minorUnitsFollowAPriceRefreshedFromTheDatabase() {
+        Product product = testData.product(5);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product managed = entityManager.find(Product.class, product.getId());
+            assertThat(managed.getPriceMinorUnits()).isEqualTo(1000);
+
+            entityManager.createQuery("UPDATE Product p SET p.price = 12.34 WHERE p.id = :id")
+                    .setParameter("id", product.getId())
+                    .executeUpdate();
+            entityManager.refresh(managed);
+
+            assertThat(managed.getPriceMinorUnits()).isEqualTo(1234);
+        });
+    }
+
+    // Merge copies the detached price onto the managed instance through the field, without a load
+    @Test
+    void minorUnitsFollowAMergedPrice() {
+        Product product = testData.product(5);
+        product.setPrice(new BigDecimal("56.78"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product managed = entityManager.find(Product.class, product.getId());
+            assertThat(managed.getPriceMinorUnits()).isEqualTo(1000);
+
+            assertThat(entityManager.merge(product)).isSameAs(managed);
+
+            assertThat(managed.getPriceMinorUnits()).isEqualTo(5678);
+        });
+    }
+
+    // The index must find what the LIKE %keyword% query found: inside a word, and a phrase only in its order
+    @Test
+    void searchMatchesWhatTheKeywordQueryMatches() {
+        String tag = "q" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        Product insideWord = productService.saveProduct(product("smart" + tag + "phone", "plain"));
+        Product atWordStart = productService.saveProduct(product(tag + "phone case", "plain"));
+        Product inDescription = productService.saveProduct(product("plain", "blue " + tag + " cover"));
+        Product split = productService.saveProduct(product(tag + " phone", "plain"));
+
+        assertThat(productSearchIndex.search(tag + "phone")).containsExactly(atWordStart.getId(), insideWord.getId());
+        assertThat(productSearchIndex.search("blue " + tag)).containsExactly(inDescription.getId());
+        assertThat(productSearchIndex.search(tag + " blue")).isEmpty();
+        for (String keyword : List.of(tag, tag + "phone", tag.substring(4) + "pho", "blue " + tag, tag + " phone")) {
+            assertThat(productSearchIndex.search(keyword)).as(keyword)
+                    .containsExactlyInAnyOrderElementsOf(keywordQuery(keyword));
+        }
+        assertThat(productSearchIndex.search(tag)).contains(split.getId());
+    }
+
+    @Test
+    void shortKeywordsAreLeftToTheDatabase() {
+        assertThat(ProductSearchIndex.isSearchable("tv")).isFalse();
+        assertThat(ProductSearchIndex.isSearchable("tv stand")).isTrue();
+        assertThat(ProductSearchIndex.isSearchable("a-b")).isFalse();
+    }
+
+    private List<Long> keywordQuery(String keyword) {
+        return productRepository.findByKeyword(keyword, Pageable.unpaged()).map(Product::getId).getContent();
+    }
+
+    private static Product product(String name, String description) {
+        return new Product(name, description, new BigDecimal("10.00"), 5, null, "Test", "Test");
+    }
+
+    private static Product details(Product product, String name) {
+        return new Product(name, product.getDescription(), new BigDecimal("11.00"), product.getStockQuantity(),
+                product.getImageUrl(), product.getCategory(), product.getBrand());
+    }
+}
@@ -0,0 +1,185 @@
+package com.ecommerce.service;
+
+import com.ecommerce.StripeStub;
+import com.ecommerce.service.StripeGateway.Operation;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.param.PaymentIntentCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.stripe.max-concurrent-calls=2",
+        "app.stripe.bulkhead-wait-ms=50",
+        "app.stripe.max-network-retries=0",
+        "app.stripe.connect-timeout-ms=500",
+        "app.stripe.confirm-timeout-ms=300",
+        "app.stripe.breaker.failure-threshold=3",
+        "app.stripe.breaker.open-ms=500",
+        "app.stripe.hedge-after-ms=100"
+})
+class StripeGatewayTest {
+
+    private static final StripeStub stripe = StripeStub.instance();
+
+    @Autowired
+    private StripeGateway stripeGateway;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void resetStub() {
+        stripe.reset();
+    }
+
+    @Test
+    void callsBeyondTheBulkheadAreRejectedWithoutReachingStripe() {
+        stripe.latency(1000);
+        List<CompletableFuture<PaymentIntent>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return create();
+                } catch (StripeException e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+
+        int succeeded = 0;
+        int rejected = 0;
+        for (CompletableFuture<PaymentIntent> call : calls) {
+            try {
+                call.orTimeout(10, TimeUnit.SECONDS).join();
+                succeeded++;
+            } catch (CompletionException e) {
+                assertThat(e.getCause()).isInstanceOf(PaymentUnavailableException.class);
+                rejected++;
+            }
+        }
+        assertThat(succeeded).isEqualTo(2);
+        assertThat(rejected).isEqualTo(2);
+        assertThat(stripe.requests()).isEqualTo(2);
+        assertThat(stripe.maxConcurrent()).isEqualTo(2);
+    }
+
+    @Test
+    void breakerOpensAfterConsecutiveProviderFailuresAndProbesOnceItCoolsDown() throws Exception {
+        stripe.fail(3, 503);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(this::create).isInstanceOf(StripeException.class)
+                    .isNotInstanceOf(PaymentUnavailableException.class);
+        }
+
+        assertThatThrownBy(this::create).isInstanceOf(PaymentUnavailableException.class);
+        assertThat(stripe.requests()).isEqualTo(3);
+
+        Thread.sleep(600);
+        assertThat(create().getId()).isNotNull();
+        assertThat(create().getId()).isNotNull();
+        assertThat(stripe.requests()).isEqualTo(5);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() throws Exception {
+        stripe.fail(5, 400);
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(this::create).isInstanceOf(InvalidRequestException.class);
+        }
+
+        assertThat(create().getId()).isNotNull();
+        assertThat(stripe.requests()).isEqualTo(6);
+    }
+
+    // The hedge answers first, but the slow primary keeps its slot until it finishes too
+    @Test
+    void slowRetrieveIsHedgedAndThePrimaryKeepsItsSlot() throws Exception {
+        double hedges = meterRegistry.counter("stripe.hedges").count();
+        stripe.slow(1, 1500);
+
+        long start = System.nanoTime();
+        PaymentIntent paymentIntent = stripeGateway.call(Operation.RETRIEVE_PAYMENT_INTENT, null,
+                options -> PaymentIntent.retrieve("pi_hedged", options));
+
+        assertThat(paymentIntent.getId()).isEqualTo("pi_hedged");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(meterRegistry.counter("stripe.hedges").count()).isEqualTo(hedges + 1);
+        assertThat(availableSlots()).isEqualTo(1);
+        poll(() -> availableSlots() == 2);
+        assertThat(stripe.requests()).isEqualTo(2);
+    }
+
+    @Test
+    void retrieveIsNotHedgedWhenNoSlotIsSpare() throws Exception {
+        stripe.slow(2, 1000);
+        CompletableFuture<PaymentIntent> other = CompletableFuture.supplyAsync(() -> {
+            try {
+                return create();
+            } catch (StripeException e) {
+                throw new CompletionException(e);
+            }
+        });
+        poll(() -> availableSlots() == 1);
+
+        double hedges = meterRegistry.counter("stripe.hedges").count();
+        PaymentIntent paymentIntent = stripeGateway.call(Operation.RETRIEVE_PAYMENT_INTENT, null,
+                options -> PaymentIntent.retrieve("pi_unhedged", options));
+
+        assertThat(paymentIntent.getId()).isEqualTo("pi_unhedged");
+        assertThat(meterRegistry.counter("stripe.hedges").count()).isEqualTo(hedges);
+        other.orTimeout(10, TimeUnit.SECONDS).join();
+        assertThat(stripe.requests()).isEqualTo(2);
+    }
+
+    // A response that keeps trickling in never trips the read timeout; the caller still stops waiting at the bound
+    @Test
+    void callOutlastingItsBoundIsAbandonedAndKeepsItsSlot() throws Exception {
+        CompletableFuture<Void> stuck = new CompletableFuture<>();
+        long start = System.nanoTime();
+        try {
+            assertThatThrownBy(() -> stripeGateway.call(Operation.CONFIRM_PAYMENT_INTENT, null, options -> {
+                stuck.join();
+                return null;
+            })).isInstanceOf(ApiConnectionException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .isBetween(stripeGateway.callBoundMs(Operation.CONFIRM_PAYMENT_INTENT), 5000L);
+            assertThat(availableSlots()).isEqualTo(1);
+        } finally {
+            stuck.complete(null);
+        }
+        poll(() -> availableSlots() == 2);
+    }
+
+    private PaymentIntent create() throws StripeException {
+        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder().setAmount(1000L).setCurrency("usd").build();
+        return stripeGateway.call(Operation.CREATE_PAYMENT_INTENT, null, options -> PaymentIntent.create(params, options));
+    }
+
+    private double availableSlots() {
+        return meterRegistry.get("stripe.bulkhead.available").gauge().value();
+    }
+
+    private static void poll(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.model.WebhookEvent;
+import com.ecommerce.model.WebhookEventStatus;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.WebhookEventRepository;
+import com.stripe.Stripe;
+import com.stripe.net.Webhook;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = {
+        "stripe.webhook.secret=" + StripeWebhookServiceTest.SECRET,
+        "app.webhook.retry-backoff-ms=60000"
+})
+@AutoConfigureMockMvc
+class StripeWebhookServiceTest {
+
+    static final String SECRET = "whsec_test";
+
+    private static final int ORDERS = 50;
+    private static final int EVENTS = 2000;
+    private static final int REDELIVERIES = 500;
+    private static final int SENDERS = 16;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private StripeWebhookService stripeWebhookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Simulates Stripe at settlement time: signed deliveries from many connections at once, with some events
+    // delivered again while the first copy may still be in flight
+    @Test
+    void burstOfSignedDeliveriesIsAppliedOncePerEvent() throws Exception {
+        User user = testData.user();
+        Product product = testData.product(ORDERS);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = testData.order(user, product, 1);
+            orderService.updatePaymentStatus(order.getId(), "pi_sim_" + order.getId(), "created");
+            orderIds.add(order.getId());
+        }
+
+        String run = UUID.randomUUID().toString();
+        List<String> deliveries = new ArrayList<>(EVENTS + REDELIVERIES);
+        for (int i = 0; i < EVENTS; i++) {
+            deliveries.add(event("evt_" + run + "_" + i, "pi_sim_" + orderIds.get(i % ORDERS)));
+        }
+        for (int i = 0; i < REDELIVERIES; i++) {
+            deliveries.add(deliveries.get(ThreadLocalRandom.current().nextInt(EVENTS)));
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < SENDERS; t++) {
+            results.add(senders.submit(() -> {
+                for (int i = next.getAndIncrement(); i < deliveries.size(); i = next.getAndIncrement()) {
+                    String body = deliver(deliveries.get(i));
+                    (body.equals("Success") ? accepted : duplicates).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(2, TimeUnit.MINUTES);
+        }
+        senders.shutdown();
+
+        assertThat(accepted.get()).isEqualTo(EVENTS);
+        assertThat(duplicates.get()).isEqualTo(REDELIVERIES);
+
+        poll(() -> countEvents(run, "status = 'PROCESSED' AND attempts = 1") == EVENTS);
+        assertThat(countEvents(run, "1 = 1")).isEqualTo(EVENTS);
+        assertThat(orderRepository.findAllById(orderIds))
+                .allSatisfy(order -> assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED));
+    }
+
+    // A failure retried after backoff or replayed by range can be applied after the success that followed it
+    @Test
+    void lateFailureDoesNotCancelAPaidOrder() throws Exception {
+        Order order = testData.order(testData.user(), testData.product(1), 1);
+        String paymentIntentId = "pi_sim_" + order.getId();
+        orderService.updatePaymentStatus(order.getId(), paymentIntentId, "created");
+        long now = Instant.now().getEpochSecond();
+        String succeeded = "evt_" + UUID.randomUUID();
+        String failed = "evt_" + UUID.randomUUID();
+
+        assertThat(deliver(event(succeeded, paymentIntentId, "payment_intent.succeeded", "succeeded", now)))
+                .isEqualTo("Success");
+        poll(() -> isProcessed(succeeded));
+        assertThat(deliver(event(failed, paymentIntentId, "payment_intent.payment_failed", "requires_payment_method",
+                now - 60))).isEqualTo("Success");
+        poll(() -> isProcessed(failed));
+
+        Order paid = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(paid.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(paid.getPaymentStatus()).isEqualTo("succeeded");
+    }
+
+    @Test
+    void failedEventIsNotRetriedBeforeItsBackoff() throws Exception {
+        WebhookEvent event = webhookEventRepository.save(
+                new WebhookEvent("evt_" + UUID.randomUUID(), "payment_intent.succeeded", "not an event"));
+        stripeWebhookService.wakeUp();
+        poll(() -> webhookEventRepository.findById(event.getId()).orElseThrow().getAttempts() == 1);
+
+        WebhookEvent failed = webhookEventRepository.findById(event.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(WebhookEventStatus.RECEIVED);
+        assertThat(failed.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(50));
+
+        stripeWebhookService.wakeUp();
+        Thread.sleep(500);
+        assertThat(webhookEventRepository.findById(event.getId()).orElseThrow().getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyClaimsOlderThanTheLeaseAreReleased() {
+        WebhookEvent abandoned = claimed(LocalDateTime.now().minusMinutes(10));
+        WebhookEvent inFlight = claimed(LocalDateTime.now().minusSeconds(1));
+
+        stripeWebhookService.releaseExpiredClaims();
+
+        assertThat(webhookEventRepository.findById(abandoned.getId()).orElseThrow().getStatus())
+                .isNotEqualTo(WebhookEventStatus.PROCESSING);
+        assertThat(webhookEventRepository.findById(inFlight.getId()).orElseThrow().getStatus())
+                .isEqualTo(WebhookEventStatus.PROCESSING);
+    }
+
+    private WebhookEvent claimed(LocalDateTime claimedAt) {
+        WebhookEvent event = new WebhookEvent("evt_" + UUID.randomUUID(), "payment_intent.succeeded", "not an event");
+        event.setStatus(WebhookEventStatus.PROCESSING);
+        event.setClaimedAt(claimedAt);
+        return webhookEventRepository.save(event);
+    }
+
+    private String deliver(String payload) throws Exception {
+        long timestamp = Instant.now().getEpochSecond();
+        String signature = Webhook.Util.computeHmacSha256(SECRET, timestamp + "." + payload);
+        MvcResult result = mockMvc.perform(post("/api/payments/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", "t=" + timestamp + ",v1=" + signature)
+                        .content(payload))
+                .andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        return result.getResponse().getContentAsString();
+    }
+
+    private static String event(String eventId, String paymentIntentId) {
+        return event(eventId, paymentIntentId, "payment_intent.succeeded", "succeeded", Instant.now().getEpochSecond());
+    }
+
+    private static String event(String eventId, String paymentIntentId, String type, String status, long created) {
+        return "{\"id\":\"" + eventId + "\",\"object\":\"event\",\"api_version\":\"" + Stripe.API_VERSION + "\"," +
+                "\"created\":" + created + ",\"type\":\"" + type + "\",\"livemode\":false," +
+                "\"data\":{\"object\":{\"id\":\"" + paymentIntentId + "\",\"object\":\"payment_intent\"," +
+                "\"amount\":1000,\"currency\":\"usd\",\"status\":\"" + status + "\",\"created\":" + created + "}}}";
+    }
+
+    private boolean isProcessed(String eventId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM webhook_events WHERE event_id = ? AND status = 'PROCESSED'",
+                Long.class, eventId) == 1;
+    }
+
+    private long countEvents(String run, String condition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM webhook_events WHERE event_id LIKE ? AND " + condition,
+                Long.class, "evt_" + run + "_%");
+    }
+
+    private static void poll(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
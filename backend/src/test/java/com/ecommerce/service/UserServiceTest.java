@@ -0,0 +1,69 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class UserServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void emailChangeDropsBothCachedKeys() {
+        User user = testData.user();
+        String previousEmail = user.getEmail();
+        assertThat(userService.getUserById(user.getId())).isPresent();
+        assertThat(userService.getUserByEmail(previousEmail)).isPresent();
+
+        String newEmail = UUID.randomUUID() + "@example.com";
+        userService.updateUser(user.getId(), details("Renamed", newEmail));
+
+        assertThat(userService.getUserById(user.getId()).orElseThrow().getEmail()).isEqualTo(newEmail);
+        assertThat(userService.getUserByEmail(previousEmail)).isEmpty();
+        assertThat(userService.getUserByEmail(newEmail).map(User::getName)).contains("Renamed");
+    }
+
+    // A read between the update and its commit still sees the old row; the eviction must come after it
+    @Test
+    void readDuringAnUpdateDoesNotLeaveTheOldRowCached() {
+        User user = testData.user();
+        String newEmail = UUID.randomUUID() + "@example.com";
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.updateUser(user.getId(), details("Renamed", newEmail));
+            Optional<User> byId = CompletableFuture.supplyAsync(() -> userService.getUserById(user.getId()))
+                    .orTimeout(10, TimeUnit.SECONDS).join();
+            Optional<User> byEmail = CompletableFuture.supplyAsync(() -> userService.getUserByEmail(user.getEmail()))
+                    .orTimeout(10, TimeUnit.SECONDS).join();
+            assertThat(byId.orElseThrow().getName()).isEqualTo(user.getName());
+            assertThat(byEmail).isPresent();
+        });
+
+        assertThat(userService.getUserById(user.getId()).orElseThrow().getName()).isEqualTo("Renamed");
+        assertThat(userService.getUserByEmail(user.getEmail())).isEmpty();
+        assertThat(userService.getUserByEmail(newEmail).map(User::getId)).contains(user.getId());
+    }
+
+    private static User details(String name, String email) {
+        return new User(name, email, null);
+    }
+}
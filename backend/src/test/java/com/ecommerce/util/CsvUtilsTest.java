@@ -0,0 +1,75 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvUtilsTest {
+
+    @Test
+    void escapedValuesReadBackUnchanged() throws IOException {
+        List<List<String>> rows = List.of(
+                List.of("1", "plain", ""),
+                List.of("2", "comma, and \"quotes\"", "two\nlines"),
+                List.of("3", "\"\n\"", "ends with a break\n"));
+        StringBuilder csv = new StringBuilder();
+        for (List<String> row : rows) {
+            csv.append(CsvUtils.row(row.toArray())).append('\n');
+        }
+
+        BufferedReader reader = new BufferedReader(new StringReader(csv.toString()));
+        List<List<String>> parsed = new ArrayList<>();
+        String record;
+        while ((record = CsvUtils.readRecord(reader)) != null) {
+            parsed.add(CsvUtils.parseLine(record));
+        }
+
+        assertThat(parsed).isEqualTo(rows);
+    }
+
+    @Test
+    void crLfInsideAQuotedValueReadsBackAsLf() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("a,\"x\r\ny\"\r\nb,c\r\n"));
+
+        assertThat(CsvUtils.parseLine(CsvUtils.readRecord(reader))).containsExactly("a", "x\ny");
+        assertThat(CsvUtils.parseLine(CsvUtils.readRecord(reader))).containsExactly("b", "c");
+        assertThat(CsvUtils.readRecord(reader)).isNull();
+    }
+
+    @Test
+    void singleLineOverTheCapIsRejectedBeforeItIsRead() {
+        // Never ends; without the cap readLine would keep buffering until memory ran out
+        Reader endless = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                Arrays.fill(buffer, offset, offset + length, 'x');
+                return length;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertThatThrownBy(() -> CsvUtils.readRecord(CsvUtils.reader(endless))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void linesUnderTheCapReadNormally() throws IOException {
+        String longValue = "y".repeat(100_000);
+        BufferedReader reader = CsvUtils.reader(new StringReader("a,b\r\n" + longValue + ",c\n"));
+
+        assertThat(CsvUtils.parseLine(CsvUtils.readRecord(reader))).containsExactly("a", "b");
+        assertThat(CsvUtils.parseLine(CsvUtils.readRecord(reader))).containsExactly(longValue, "c");
+        assertThat(CsvUtils.readRecord(reader)).isNull();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    private static final Map<String, Function<String, Object>> TYPES = new LinkedHashMap<>();
+
+    static {
+        TYPES.put("name", value -> value);
+        TYPES.put("id", Long::valueOf);
+    }
+
+    @Test
+    void decodesWhatItEncoded() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("name", "a&b=c");
+        keys.put("id", 42L);
+
+        KeysetScrollPosition position = KeysetCursor.decode(KeysetCursor.encode(ScrollPosition.forward(keys)), TYPES);
+
+        assertThat(position.getKeys()).isEqualTo(keys);
+    }
+
+    @Test
+    void oversizedCursorIsRejectedWithoutDecoding() {
+        String cursor = "A".repeat(KeysetCursor.MAX_LENGTH + 1);
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor, TYPES))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor")
+                .hasNoCause();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductBulkService;
+import com.ecommerce.service.ProductBulkService.BulkFormat;
+import com.ecommerce.service.ProductBulkService.BulkImportResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Checkout and bulk import with JDBC batching off (hibernate.jdbc.batch_size=1) and on
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchWriteBenchmark {
+
+    // Rows per imported CSV body
+    @Param("1000")
+    public int importRows;
+
+    private OrderService orderService;
+    private ProductBulkService productBulkService;
+    private byte[] importBody;
+
+    @Setup
+    public void setUp(BatchingCatalog catalog) {
+        orderService = catalog.bean(OrderService.class);
+        productBulkService = catalog.bean(ProductBulkService.class);
+
+        StringBuilder csv = new StringBuilder("name,description,price,stockQuantity,category,brand\n");
+        for (int i = 0; i < importRows; i++) {
+            String word = BenchmarkApplication.WORDS[i % BenchmarkApplication.WORDS.length];
+            csv.append("Imported ").append(word).append(' ').append(i).append(",Bulk ").append(word)
+                    .append(",19.99,100,Imported,Brand ").append(i % 10).append('\n');
+        }
+        importBody = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Order createOrderFromCart(FilledCart cart) {
+        return orderService.createOrderFromCart(cart.userId, "1 Benchmark Way", "1 Benchmark Way");
+    }
+
+    // Every row is a new product, so each operation inserts importRows rows
+    @Benchmark
+    public BulkImportResult importProducts() throws IOException {
+        return productBulkService.importProducts(new ByteArrayInputStream(importBody), BulkFormat.CSV);
+    }
+
+    // Fills the next user's cart before each checkout; not part of the measured time
+    @State(Scope.Thread)
+    public static class FilledCart {
+
+        @Param("20")
+        public int cartLines;
+
+        private long step;
+        Long userId;
+
+        @Setup(Level.Invocation)
+        public void fill(BatchingCatalog catalog) {
+            long n = step++;
+            userId = catalog.userIds.get((int) (n % catalog.userIds.size()));
+            for (int i = 0; i < cartLines; i++) {
+                Long productId = catalog.productIds.get((int) ((n * cartLines + i) % catalog.productIds.size()));
+                catalog.bean(CartService.class).addItemToCart(userId, productId, 1);
+            }
+        }
+    }
+
+    public static class BatchingCatalog extends CatalogState {
+
+        @Param({"1", "50"})
+        public int batchSize;
+
+        @Override
+        String[] properties() {
+            return new String[] {"app.jpa.batch-size=" + batchSize};
+        }
+    }
+}
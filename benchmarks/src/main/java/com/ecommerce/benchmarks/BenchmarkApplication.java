@@ -0,0 +1,88 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.EcommerceBackendApplication;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.ProductFacetIndex;
+import com.ecommerce.service.ProductSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Boots the backend against a private in-memory H2 database and fills it with a generated, seeded dataset
+final class BenchmarkApplication {
+
+    static final String[] WORDS = {
+            "wireless", "pro", "ultra", "compact", "smart", "classic", "premium", "sport", "travel", "studio",
+            "organic", "cotton", "leather", "steel", "carbon", "digital", "portable", "vintage", "eco", "max",
+            "headphones", "laptop", "camera", "jacket", "sneakers", "watch", "backpack", "speaker", "lamp", "bottle",
+            "keyboard", "monitor", "blender", "chair", "desk", "tent", "bicycle", "novel", "guitar", "drone"
+    };
+
+    private static final int CATEGORIES = 20;
+    private static final int BRANDS = 50;
+    private static final int BATCH_SIZE = 1000;
+    // High enough that reservations during a run never hit the stock check
+    private static final int STOCK = 1_000_000_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(EcommerceBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "stripe.secret-key=sk_test_benchmark",
+                        "spring.security.oauth2.client.registration.google.client-id=benchmark",
+                        "spring.security.oauth2.client.registration.google.client-secret=benchmark",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static List<Long> createProducts(ConfigurableApplicationContext context, int count, long seed) {
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        Random random = new Random(seed);
+        List<Long> ids = new ArrayList<>(count);
+        List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            String name = word(random) + " " + word(random) + " " + word(random);
+            String description = word(random) + " " + word(random) + " " + word(random) + " " + word(random);
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            batch.add(new Product(name, description, price, STOCK, null,
+                    "Category " + random.nextInt(CATEGORIES), "Brand " + random.nextInt(BRANDS)));
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                productRepository.saveAll(batch).forEach(product -> ids.add(product.getId()));
+                batch.clear();
+            }
+        }
+
+        // The indexes were built at startup, before the dataset existed
+        context.getBean(ProductSearchIndex.class).rebuild();
+        context.getBean(ProductFacetIndex.class).rebuild();
+        return ids;
+    }
+
+    static List<Long> createUsers(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("Benchmark User " + i, "bench-" + i + "@example.com", null));
+        }
+        List<Long> ids = new ArrayList<>(count);
+        userRepository.saveAll(users).forEach(user -> ids.add(user.getId()));
+        return ids;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    // Distinct products per cart; adds cycle over them so carts stay this size for the whole run
+    @Param("10")
+    public int cartLines;
+
+    private CartService cartService;
+    private long step;
+
+    // Loads every cart up front so the measurement covers steady-state adds rather than first loads
+    @Setup
+    public void setUp(CatalogState catalog) {
+        cartService = catalog.bean(CartService.class);
+        for (Long userId : catalog.userIds) {
+            cartService.getCartByUserId(userId);
+        }
+    }
+
+    @Benchmark
+    public Cart addItemToCart(CatalogState catalog) {
+        long n = step++;
+        Long userId = catalog.userIds.get((int) (n % catalog.userIds.size()));
+        Long productId = catalog.productIds.get((int) ((n / catalog.userIds.size()) % cartLines));
+        return cartService.addItemToCart(userId, productId, 1);
+    }
+}
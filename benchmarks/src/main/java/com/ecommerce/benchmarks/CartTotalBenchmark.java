@@ -0,0 +1,83 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compare gc.alloc.rate.norm (bytes per operation, from -prof gc) across the benchmarks
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalBenchmark {
+
+    @Param({"5", "50", "100"})
+    public int lines;
+
+    private Cart cart;
+    private List<CartItem> items;
+
+    @Setup
+    public void setUp() {
+        cart = new Cart();
+        items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product("Product " + i, "", new BigDecimal("19.99").add(BigDecimal.valueOf(i)),
+                    100, null, "Category", "Brand");
+            product.setId((long) i + 1);
+            CartItem item = new CartItem(cart, product, 1 + i % 3);
+            cart.addItem(item);
+            items.add(item);
+        }
+    }
+
+    // What Jackson and checkout see once the aggregates exist
+    @Benchmark
+    public BigDecimal getTotal() {
+        return cart.getTotal();
+    }
+
+    // First read after a cart is loaded: one pass over the lines in cents
+    @Benchmark
+    public long aggregate() {
+        cart.resetAggregates();
+        return cart.getTotalMinorUnits();
+    }
+
+    // The same pass with each line's price converted to cents on every call instead of read from the product
+    @Benchmark
+    public long aggregateDerivingCents() {
+        long total = 0;
+        for (CartItem item : items) {
+            total += Money.toMinorUnits(item.getProduct().getPrice()) * item.getQuantity();
+        }
+        return total;
+    }
+
+    // The previous implementation: a BigDecimal per line on every call
+    @Benchmark
+    public BigDecimal bigDecimalStream() {
+        return items.stream()
+                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
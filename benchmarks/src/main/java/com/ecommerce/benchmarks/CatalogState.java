@@ -0,0 +1,51 @@
+package com.ecommerce.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+// One booted application and dataset per trial; dataset sizes can be changed with -p catalogSize=... -p userCount=...
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param("10000")
+    public int catalogSize;
+
+    @Param("1000")
+    public int userCount;
+
+    ConfigurableApplicationContext context;
+    List<Long> productIds;
+    List<Long> userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(properties());
+        productIds = BenchmarkApplication.createProducts(context, catalogSize(), 42L);
+        userIds = BenchmarkApplication.createUsers(context, userCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Extra application properties for the booted backend
+    String[] properties() {
+        return new String[0];
+    }
+
+    int catalogSize() {
+        return catalogSize;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"1", "10"})
+    public int cartLines;
+
+    private CartService cartService;
+    private OrderService orderService;
+    private long step;
+    private Long userId;
+
+    @Setup
+    public void setUp(CatalogState catalog) {
+        cartService = catalog.bean(CartService.class);
+        orderService = catalog.bean(OrderService.class);
+    }
+
+    // Fills the next user's cart; not part of the measured time
+    @Setup(Level.Invocation)
+    public void fillCart(CatalogState catalog) {
+        long n = step++;
+        userId = catalog.userIds.get((int) (n % catalog.userIds.size()));
+        for (int i = 0; i < cartLines; i++) {
+            Long productId = catalog.productIds.get((int) ((n * cartLines + i) % catalog.productIds.size()));
+            cartService.addItemToCart(userId, productId, 1);
+        }
+    }
+
+    @Benchmark
+    public Order createOrderFromCart() {
+        return orderService.createOrderFromCart(userId, "1 Benchmark Way", "1 Benchmark Way");
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.dto.ProductSummary;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.util.KeysetCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The same page read through /products?page= (offset) and /products/scroll (keyset cursor of the previous page)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "10000"})
+    public int page;
+
+    private ProductService productService;
+    private Pageable offsetPage;
+    private String cursor;
+
+    @Setup
+    public void setUp(PagedCatalog catalog) {
+        productService = catalog.bean(ProductService.class);
+        offsetPage = PageRequest.of(page, PAGE_SIZE, Sort.by("id"));
+
+        List<Long> ids = new ArrayList<>(catalog.productIds);
+        Collections.sort(ids);
+        Long lastOfPreviousPage = ids.get(page * PAGE_SIZE - 1);
+        cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("id", lastOfPreviousPage)));
+    }
+
+    @Benchmark
+    public Page<ProductSummary> offset() {
+        return productService.getProductSummaries(offsetPage);
+    }
+
+    @Benchmark
+    public Window<Product> keyset() {
+        return productService.scrollProducts(cursor, PAGE_SIZE, "id", "asc");
+    }
+
+    // Page 10,000 of 20 needs more than 200,000 products
+    public static class PagedCatalog extends CatalogState {
+
+        @Param("250000")
+        public int catalogSize;
+
+        @Override
+        int catalogSize() {
+            return catalogSize;
+        }
+    }
+}
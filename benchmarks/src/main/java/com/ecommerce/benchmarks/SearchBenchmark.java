@@ -0,0 +1,78 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+// Sampled so the report carries p50/p99 per query; the JPQL LIKE query is the baseline the index replaced
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private String[] keywords;
+    private long step;
+
+    // Single words, two-word queries and prefixes, cycled in a fixed order
+    @Setup
+    public void setUp(SearchCatalog catalog) {
+        productService = catalog.bean(ProductService.class);
+        productRepository = catalog.bean(ProductRepository.class);
+        String[] words = BenchmarkApplication.WORDS;
+        keywords = new String[words.length * 3];
+        for (int i = 0; i < words.length; i++) {
+            keywords[i * 3] = words[i];
+            keywords[i * 3 + 1] = words[i] + " " + words[(i + 7) % words.length];
+            keywords[i * 3 + 2] = words[i].substring(0, 3);
+        }
+    }
+
+    @Benchmark
+    public Page<Product> searchProducts() {
+        return productService.searchProducts(nextKeyword(), FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<Product> keywordQuery() {
+        return productRepository.findByKeyword(nextKeyword(), FIRST_PAGE);
+    }
+
+    private String nextKeyword() {
+        return keywords[(int) (step++ % keywords.length)];
+    }
+
+    // Search cost grows with the catalog, so it is measured up to a million products
+    public static class SearchCatalog extends CatalogState {
+
+        @Param({"10000", "100000", "1000000"})
+        public int catalogSize;
+
+        @Override
+        int catalogSize() {
+            return catalogSize;
+        }
+    }
+}
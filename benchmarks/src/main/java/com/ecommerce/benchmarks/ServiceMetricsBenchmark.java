@@ -0,0 +1,68 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.dto.CartView;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Cheap, in-memory service calls with the per-method timer aspect on and off; the difference is its cost per call
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceMetricsBenchmark {
+
+    private ProductService productService;
+    private CartService cartService;
+    private long step;
+
+    // Loads every cart and warms the product cache so both calls stay in memory
+    @Setup
+    public void setUp(TimedCatalog catalog) {
+        productService = catalog.bean(ProductService.class);
+        cartService = catalog.bean(CartService.class);
+        for (Long userId : catalog.userIds) {
+            cartService.addItemToCart(userId, catalog.productIds.get(0), 1);
+        }
+        for (Long productId : catalog.productIds) {
+            productService.getProductById(productId);
+        }
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById(TimedCatalog catalog) {
+        return productService.getProductById(catalog.productIds.get((int) (step++ % catalog.productIds.size())));
+    }
+
+    @Benchmark
+    public CartView getCartView(TimedCatalog catalog) {
+        return cartService.getCartView(catalog.userIds.get((int) (step++ % catalog.userIds.size())));
+    }
+
+    public static class TimedCatalog extends CatalogState {
+
+        @Param({"true", "false"})
+        public boolean serviceTimers;
+
+        @Override
+        String[] properties() {
+            return new String[] {"app.metrics.service-timers=" + serviceTimers};
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.TokenService;
+import com.ecommerce.security.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Per-request authentication cost in app.auth.mode=token, next to the user row lookup that it saves
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenAuthBenchmark {
+
+    private TokenService tokenService;
+    private UserRepository userRepository;
+    private UserPrincipal principal;
+    private String token;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp(CatalogState catalog) {
+        tokenService = catalog.bean(TokenService.class);
+        userRepository = catalog.bean(UserRepository.class);
+        Long userId = catalog.userIds.get(0);
+        principal = UserPrincipal.create(userRepository.findById(userId).orElseThrow());
+        token = tokenService.issue(principal);
+        char last = token.charAt(token.length() - 1);
+        tamperedToken = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+    }
+
+    @Benchmark
+    public UserPrincipal verify() {
+        return tokenService.verify(token);
+    }
+
+    // Forged or corrupted tokens cost the same as valid ones: the signature is always computed in full
+    @Benchmark
+    public UserPrincipal verifyTampered() {
+        return tokenService.verify(tamperedToken);
+    }
+
+    @Benchmark
+    public String issue() {
+        return tokenService.issue(principal);
+    }
+
+    // What every request would pay if the principal were rebuilt from the database instead
+    @Benchmark
+    public Optional<User> loadUser() {
+        return userRepository.findById(principal.getId());
+    }
+}
@@ -31,7 +31,7 @@ const OrderHistory = () => {
 
   const loadOrders = async () => {
     try {
-      const ordersData = await orderService.getOrdersByUserId(user.id);
+      const ordersData = await orderService.getOrderSummariesByUserId(user.id);
       setOrders(ordersData);
     } catch (error) {
       console.error('Error loading orders:', error);
@@ -145,17 +145,17 @@ const OrderHistory = () => {
                         Items:
                       </Typography>
                       <List dense>
-                        {order.orderItems?.map((item) => (
+                        {order.items?.map((item) => (
                           <ListItem key={item.id} sx={{ px: 0 }}>
                             <ListItemAvatar>
                               <Avatar 
-                                src={item.product.imageUrl} 
-                                alt={item.product.name}
+                                src={item.productImageUrl} 
+                                alt={item.productName}
                                 variant="square"
                               />
                             </ListItemAvatar>
                             <ListItemText
-                              primary={item.product.name}
+                              primary={item.productName}
                               secondary={`Quantity: ${item.quantity} × $${item.unitPrice}`}
                             />
                             <Typography variant="body2" fontWeight="bold">
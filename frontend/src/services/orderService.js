@@ -13,6 +13,10 @@ export const orderService = {
     return api.get(`/orders/user/${userId}`).then(response => response.data);
   },
 
+  getOrderSummariesByUserId: (userId) => {
+    return api.get(`/orders/user/${userId}/summary`).then(response => response.data);
+  },
+
   getOrdersByUserIdPaginated: (userId, params = {}) => {
     const { page = 0, size = 10 } = params;
     return api.get(`/orders/user/${userId}/paginated?page=${page}&size=${size}`)
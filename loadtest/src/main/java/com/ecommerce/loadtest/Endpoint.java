@@ -0,0 +1,26 @@
+package com.ecommerce.loadtest;
+
+import java.util.Locale;
+
+enum Endpoint {
+    BROWSE("GET /api/products"),
+    SEARCH("GET /api/products/search"),
+    ADD_TO_CART("POST /api/cart/current/items"),
+    PLACE_ORDER("POST /api/orders"),
+    CREATE_PAYMENT_INTENT("POST /api/payments/create-payment-intent"),
+    STRIPE_WEBHOOK("POST /api/payments/webhook");
+
+    private final String route;
+
+    Endpoint(String route) {
+        this.route = route;
+    }
+
+    String route() {
+        return route;
+    }
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
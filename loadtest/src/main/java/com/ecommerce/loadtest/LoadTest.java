@@ -0,0 +1,269 @@
+package com.ecommerce.loadtest;
+
+import com.ecommerce.loadtest.StageStats.EndpointStats;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator: each stage sends requests at a fixed arrival rate regardless of how fast the
+// backend answers, picking endpoints from a weighted traffic mix, and reports throughput, latency
+// percentiles and error rate per endpoint. Running stages at increasing rates shows where a single node
+// saturates; the slow-stripe scenario shows whether a slow payment provider spills over into the catalog.
+// See LoadTestOptions for the options.
+public final class LoadTest {
+
+    private static final Endpoint[] CATALOG = {Endpoint.BROWSE, Endpoint.SEARCH};
+
+    private final LoadTestOptions options;
+    private final StripeStub stripeStub;
+    private final Storefront storefront;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Random random;
+    private final Endpoint[] mixEndpoints;
+    private final int[] mixWeights;
+    private final int totalWeight;
+
+    private LoadTest(LoadTestOptions options, StripeStub stripeStub) {
+        this.options = options;
+        this.stripeStub = stripeStub;
+        this.storefront = new Storefront(options);
+        this.random = new Random(options.seed);
+
+        List<Map.Entry<Endpoint, Integer>> entries = new ArrayList<>(options.mix.entrySet());
+        entries.removeIf(entry -> entry.getValue() <= 0);
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("The traffic mix needs at least one endpoint with a positive weight");
+        }
+        mixEndpoints = new Endpoint[entries.size()];
+        mixWeights = new int[entries.size()];
+        int total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            mixEndpoints[i] = entries.get(i).getKey();
+            total += entries.get(i).getValue();
+            mixWeights[i] = total;
+        }
+        totalWeight = total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.scenario.equals("slow-stripe") && options.stripeStubPort <= 0) {
+            throw new IllegalArgumentException("The slow-stripe scenario needs the Stripe stub");
+        }
+        StripeStub stripeStub = null;
+        if (options.stripeStubPort > 0) {
+            stripeStub = new StripeStub(options.stripeStubPort, options.stripeLatencyMs, options.stripeErrorRate);
+            stripeStub.start();
+            System.out.printf("Stripe stub listening on http://localhost:%d (%d ms latency, %.1f%% errors)%n",
+                    options.stripeStubPort, options.stripeLatencyMs, options.stripeErrorRate * 100);
+        }
+        boolean passed;
+        try {
+            passed = new LoadTest(options, stripeStub).run();
+        } finally {
+            if (stripeStub != null) {
+                stripeStub.stop();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws IOException, InterruptedException {
+        storefront.bootstrap();
+        System.out.printf("Target %s: %d users, %d products, mix %s%n",
+                options.baseUrl, storefront.userCount(), storefront.productCount(), options.mix);
+
+        if (options.warmupSeconds > 0) {
+            System.out.printf("Warming up at %d req/s for %d s%n", options.rates.get(0), options.warmupSeconds);
+            runStage(options.rates.get(0), options.warmupSeconds);
+        }
+
+        List<StageStats> stages = options.scenario.equals("slow-stripe") ? runSlowStripe() : runStages();
+        if (options.report != null) {
+            writeReport(stages, Path.of(options.report));
+        }
+        return !options.scenario.equals("slow-stripe") || printIsolation(stages.get(0), stages.get(1));
+    }
+
+    private List<StageStats> runStages() throws InterruptedException {
+        List<StageStats> stages = new ArrayList<>();
+        for (int rate : options.rates) {
+            StageStats stage = runStage(rate, options.stageSeconds);
+            stages.add(stage);
+            printStage(stages.size(), stage);
+        }
+        printSummary(stages);
+        return stages;
+    }
+
+    // The same rate and mix twice; only the stub's latency changes between the two stages
+    private List<StageStats> runSlowStripe() throws InterruptedException {
+        int rate = options.rates.get(0);
+        System.out.printf("%nStripe stub at %d ms%n", options.stripeLatencyMs);
+        StageStats healthy = runStage(rate, options.stageSeconds);
+        printStage(1, healthy);
+
+        stripeStub.setLatencyMs(options.slowStripeLatencyMs);
+        System.out.printf("%nStripe stub at %d ms%n", options.slowStripeLatencyMs);
+        StageStats slow = runStage(rate, options.stageSeconds);
+        printStage(2, slow);
+        stripeStub.setLatencyMs(options.stripeLatencyMs);
+        return List.of(healthy, slow);
+    }
+
+    // The bulkhead keeps Stripe calls off the threads and connections the catalog needs, so its p99 should hold
+    private boolean printIsolation(StageStats healthy, StageStats slow) {
+        double catalogBefore = healthy.combined(CATALOG).percentileMillis(99);
+        double catalogAfter = slow.combined(CATALOG).percentileMillis(99);
+        EndpointStats paymentsBefore = healthy.get(Endpoint.CREATE_PAYMENT_INTENT);
+        EndpointStats paymentsAfter = slow.get(Endpoint.CREATE_PAYMENT_INTENT);
+        System.out.printf(Locale.ROOT, "%n%-24s %12s %12s%n", "", "stripe ok", "stripe slow");
+        System.out.printf(Locale.ROOT, "%-24s %12.1f %12.1f%n", "catalog p99 ms", catalogBefore, catalogAfter);
+        System.out.printf(Locale.ROOT, "%-24s %12.1f %12.1f%n", "payments p99 ms",
+                paymentsBefore.percentileMillis(99), paymentsAfter.percentileMillis(99));
+        System.out.printf(Locale.ROOT, "%-24s %12.2f %12.2f%n", "payments err%",
+                paymentsBefore.errorRate() * 100, paymentsAfter.errorRate() * 100);
+
+        boolean isolated = catalogAfter - catalogBefore <= options.catalogP99ToleranceMs;
+        System.out.printf(Locale.ROOT, isolated
+                        ? "Catalog p99 held within %.0f ms while Stripe was slow%n"
+                        : "Catalog p99 rose by more than %.0f ms while Stripe was slow%n",
+                options.catalogP99ToleranceMs);
+        return isolated;
+    }
+
+    private StageStats runStage(int rate, int seconds) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        StageStats stage = new StageStats(rate, durationNanos);
+
+        long start = System.nanoTime();
+        for (long n = 0; ; n++) {
+            long scheduledAt = start + n * intervalNanos;
+            if (scheduledAt - start >= durationNanos) {
+                break;
+            }
+            long wait;
+            while ((wait = scheduledAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint picked = pick();
+            if (inFlight.get() >= options.maxInFlight) {
+                stage.get(picked).dropped.increment();
+                continue;
+            }
+            Storefront.Call call = storefront.prepare(picked, random);
+            EndpointStats stats = stage.get(call.endpoint());
+            inFlight.incrementAndGet();
+            storefront.send(call).whenComplete((success, error) -> {
+                stats.record(scheduledAt, error == null && success);
+                inFlight.decrementAndGet();
+            });
+        }
+
+        // Let the stage's requests finish so each one is counted in the stage that sent it
+        long drainUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.timeoutMs + 1000L);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        return stage;
+    }
+
+    private Endpoint pick() {
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < mixWeights.length; i++) {
+            if (value < mixWeights[i]) {
+                return mixEndpoints[i];
+            }
+        }
+        return mixEndpoints[mixEndpoints.length - 1];
+    }
+
+    private boolean saturated(StageStats stage) {
+        EndpointStats total = stage.total();
+        return total.throughput(stage.durationNanos) < stage.targetRate * options.minThroughputRatio
+                || total.errorRate() > options.maxErrorRate;
+    }
+
+    private void printStage(int number, StageStats stage) {
+        EndpointStats total = stage.total();
+        System.out.printf("%nStage %d: target %d req/s, %.1f ok/s, %.2f%% errors, %d dropped%s%n", number,
+                stage.targetRate, total.throughput(stage.durationNanos), total.errorRate() * 100,
+                total.dropped.sum(), saturated(stage) ? "  [saturated]" : "");
+        System.out.printf("  %-42s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "ok/s", "err%", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            EndpointStats stats = stage.get(endpoint);
+            if (stats.requests() > 0) {
+                printRow(endpoint.route(), stats, stage.durationNanos);
+            }
+        }
+        printRow("all", total, stage.durationNanos);
+    }
+
+    private static void printRow(String label, EndpointStats stats, long durationNanos) {
+        System.out.printf(Locale.ROOT, "  %-42s %9d %9.1f %7.2f %9.1f %9.1f %9.1f %9.1f %9.1f%n", label,
+                stats.requests(), stats.throughput(durationNanos), stats.errorRate() * 100,
+                stats.percentileMillis(50), stats.percentileMillis(90), stats.percentileMillis(99),
+                stats.percentileMillis(99.9), stats.maxMillis());
+    }
+
+    private void printSummary(List<StageStats> stages) {
+        System.out.printf("%n%-12s %9s %7s %9s%n", "target/s", "ok/s", "err%", "p99 ms");
+        StageStats lastHealthy = null;
+        StageStats firstSaturated = null;
+        for (StageStats stage : stages) {
+            EndpointStats total = stage.total();
+            System.out.printf(Locale.ROOT, "%-12d %9.1f %7.2f %9.1f%n", stage.targetRate,
+                    total.throughput(stage.durationNanos), total.errorRate() * 100, total.percentileMillis(99));
+            if (saturated(stage)) {
+                if (firstSaturated == null) {
+                    firstSaturated = stage;
+                }
+            } else if (firstSaturated == null) {
+                lastHealthy = stage;
+            }
+        }
+        if (firstSaturated == null) {
+            System.out.println("No stage saturated; add higher rates to find the limit");
+        } else {
+            System.out.printf("Saturated at %d req/s; last healthy stage %s%n", firstSaturated.targetRate,
+                    lastHealthy == null ? "none" : lastHealthy.targetRate + " req/s");
+        }
+    }
+
+    private static void writeReport(List<StageStats> stages, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.println("target_rate,endpoint,requests,succeeded,failed,dropped,ok_per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            for (StageStats stage : stages) {
+                for (Endpoint endpoint : Endpoint.values()) {
+                    writeReportRow(out, stage, endpoint.key(), stage.get(endpoint));
+                }
+                writeReportRow(out, stage, "all", stage.total());
+            }
+        }
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    private static void writeReportRow(PrintWriter out, StageStats stage, String endpoint, EndpointStats stats) {
+        out.printf(Locale.ROOT, "%d,%s,%d,%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n", stage.targetRate, endpoint,
+                stats.requests(), stats.succeeded.sum(), stats.failed.sum(), stats.dropped.sum(),
+                stats.throughput(stage.durationNanos), stats.percentileMillis(50), stats.percentileMillis(90),
+                stats.percentileMillis(99), stats.percentileMillis(99.9), stats.maxMillis());
+    }
+}
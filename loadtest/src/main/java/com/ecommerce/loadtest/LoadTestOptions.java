@@ -0,0 +1,128 @@
+package com.ecommerce.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Options are passed as name=value arguments; anything not given keeps the default below
+final class LoadTestOptions {
+
+    // Backend under test, started with the loadtest profile
+    String baseUrl = "http://localhost:8080";
+    // stages runs one stage per rate. slow-stripe runs two stages at the first rate, with the Stripe stub at
+    // stripe-latency-ms and then at slow-stripe-latency-ms, and checks that the catalog endpoints keep their p99
+    // while payments degrade
+    String scenario = "stages";
+    // Target arrival rate (requests per second) of each stage; stages run in order
+    List<Integer> rates = List.of(50, 100, 200, 400);
+    int stageSeconds = 30;
+    // Run at the first rate before the first stage; not reported
+    int warmupSeconds = 10;
+    // Relative weights of the endpoints in the traffic mix
+    Map<Endpoint, Integer> mix = defaultMix();
+    // Size of the seeded population (app.loadtest.users on the backend)
+    int users = 1000;
+    // Requests that would exceed this many outstanding ones are dropped and counted as errors
+    int maxInFlight = 2000;
+    int timeoutMs = 10_000;
+    // A stage whose throughput falls below this share of its target rate, or whose error rate exceeds
+    // max-error-rate, is reported as saturated
+    double minThroughputRatio = 0.95;
+    double maxErrorRate = 0.01;
+    // Port of the built-in Stripe stub; 0 runs without it
+    int stripeStubPort = 12111;
+    int stripeLatencyMs = 150;
+    double stripeErrorRate = 0.0;
+    int slowStripeLatencyMs = 5000;
+    // slow-stripe fails if the catalog p99 with the slow stub exceeds the healthy one by more than this
+    double catalogP99ToleranceMs = 50;
+    // Signed Stripe events for the stripe_webhook endpoint; the backend must run with the same stripe.webhook.secret
+    String webhookSecret = "whsec_loadtest";
+    // Share of webhook deliveries that resend an event already sent, as Stripe does when an acknowledgement is lost
+    double webhookRedeliveryRate = 0.1;
+    // Must match the stripe-java version of the backend, or it ignores the event's object
+    String stripeApiVersion = "2023-10-16";
+    long seed = 42;
+    // Optional CSV file with one row per stage and endpoint
+    String report;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions();
+        options.baseUrl = values.getOrDefault("base-url", options.baseUrl).replaceAll("/+$", "");
+        options.scenario = values.getOrDefault("scenario", options.scenario);
+        if (!options.scenario.equals("stages") && !options.scenario.equals("slow-stripe")) {
+            throw new IllegalArgumentException("Unknown scenario: " + options.scenario);
+        }
+        if (values.containsKey("rates")) {
+            options.rates = new ArrayList<>();
+            for (String rate : values.get("rates").split(",")) {
+                options.rates.add(Integer.parseInt(rate.trim()));
+            }
+        }
+        options.stageSeconds = intValue(values, "stage-seconds", options.stageSeconds);
+        options.warmupSeconds = intValue(values, "warmup-seconds", options.warmupSeconds);
+        if (values.containsKey("mix")) {
+            options.mix = parseMix(values.get("mix"));
+        }
+        options.users = intValue(values, "users", options.users);
+        options.maxInFlight = intValue(values, "max-in-flight", options.maxInFlight);
+        options.timeoutMs = intValue(values, "timeout-ms", options.timeoutMs);
+        options.minThroughputRatio = doubleValue(values, "min-throughput-ratio", options.minThroughputRatio);
+        options.maxErrorRate = doubleValue(values, "max-error-rate", options.maxErrorRate);
+        options.stripeStubPort = intValue(values, "stripe-stub-port", options.stripeStubPort);
+        options.stripeLatencyMs = intValue(values, "stripe-latency-ms", options.stripeLatencyMs);
+        options.stripeErrorRate = doubleValue(values, "stripe-error-rate", options.stripeErrorRate);
+        options.slowStripeLatencyMs = intValue(values, "slow-stripe-latency-ms", options.slowStripeLatencyMs);
+        options.catalogP99ToleranceMs = doubleValue(values, "catalog-p99-tolerance-ms", options.catalogP99ToleranceMs);
+        options.webhookSecret = values.getOrDefault("webhook-secret", options.webhookSecret);
+        options.webhookRedeliveryRate = doubleValue(values, "webhook-redelivery-rate", options.webhookRedeliveryRate);
+        options.stripeApiVersion = values.getOrDefault("stripe-api-version", options.stripeApiVersion);
+        options.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(options.seed)));
+        options.report = values.get("report");
+        return options;
+    }
+
+    // e.g. browse=45,search=25,add_to_cart=20,place_order=6,create_payment_intent=4; stripe_webhook is not in the
+    // default mix, mix=stripe_webhook=1 sends webhooks only
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":|=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint=weight in mix but got: " + entry);
+            }
+            mix.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Map<Endpoint, Integer> defaultMix() {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        mix.put(Endpoint.BROWSE, 45);
+        mix.put(Endpoint.SEARCH, 25);
+        mix.put(Endpoint.ADD_TO_CART, 20);
+        mix.put(Endpoint.PLACE_ORDER, 6);
+        mix.put(Endpoint.CREATE_PAYMENT_INTENT, 4);
+        return mix;
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    private static double doubleValue(Map<String, String> values, String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Results of one stage. Latency is measured from the time a request was scheduled to be sent, not from when
+// it actually went out, so queueing in the generator or the server under load is not hidden.
+final class StageStats {
+
+    final int targetRate;
+    final long durationNanos;
+    private final Map<Endpoint, EndpointStats> endpoints = new EnumMap<>(Endpoint.class);
+
+    StageStats(int targetRate, long durationNanos) {
+        this.targetRate = targetRate;
+        this.durationNanos = durationNanos;
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new EndpointStats());
+        }
+    }
+
+    EndpointStats get(Endpoint endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    EndpointStats total() {
+        return combined(Endpoint.values());
+    }
+
+    EndpointStats combined(Endpoint... selected) {
+        EndpointStats combined = new EndpointStats();
+        for (Endpoint endpoint : selected) {
+            EndpointStats stats = endpoints.get(endpoint);
+            combined.latency.add(stats.latency);
+            combined.succeeded.add(stats.succeeded.sum());
+            combined.failed.add(stats.failed.sum());
+            combined.dropped.add(stats.dropped.sum());
+        }
+        return combined;
+    }
+
+    static final class EndpointStats {
+        // Microseconds; resizes as needed, 3 significant digits
+        final Histogram latency = new ConcurrentHistogram(3);
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void record(long scheduledAt, boolean success) {
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt));
+            (success ? succeeded : failed).increment();
+        }
+
+        long requests() {
+            return succeeded.sum() + failed.sum() + dropped.sum();
+        }
+
+        double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 0 : (double) (failed.sum() + dropped.sum()) / requests;
+        }
+
+        double throughput(long durationNanos) {
+            return succeeded.sum() * 1e9 / durationNanos;
+        }
+
+        double percentileMillis(double percentile) {
+            return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxMillis() {
+            return latency.getTotalCount() == 0 ? 0 : latency.getMaxValue() / 1000.0;
+        }
+    }
+}
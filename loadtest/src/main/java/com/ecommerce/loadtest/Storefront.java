@@ -0,0 +1,260 @@
+package com.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+// Turns endpoint picks into requests against the backend and keeps just enough shopper state to make them
+// valid: only users who have added something place orders, and only placed orders get a payment intent.
+// When the state a pick needs is missing, the step before it in the funnel is sent instead. Stripe webhooks
+// settle the payment intents created so far, or unknown intents when there are none, which the backend
+// stores and applies as no-ops.
+final class Storefront {
+
+    private static final String USER_HEADER = "X-Load-Test-User";
+    private static final int PAGE_SIZE = 12;
+    private static final int REDELIVERY_WINDOW = 1024;
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<String> keywords = new ArrayList<>();
+
+    private final Set<Long> usersWithCart = ConcurrentHashMap.newKeySet();
+    private final Queue<Long> checkoutQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<OrderRef> paymentQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<String> settlementQueue = new ConcurrentLinkedQueue<>();
+
+    // Recently sent webhook payloads, for redeliveries; only touched by the dispatcher thread
+    private final String[] sentEvents = new String[REDELIVERY_WINDOW];
+    private long eventCount;
+
+    Storefront(LoadTestOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(options.timeoutMs))
+                .build();
+    }
+
+    // Looks up the seeded users and the catalog; fails if the backend was not started with the loadtest profile
+    void bootstrap() throws IOException, InterruptedException {
+        for (int i = 0; i < options.users; i++) {
+            HttpResponse<byte[]> response = get("/api/auth/user/email/loadtest-" + i + "@example.com");
+            if (response.statusCode() == 200) {
+                userIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+            }
+        }
+        if (userIds.isEmpty()) {
+            throw new IllegalStateException("No load test users found at " + options.baseUrl
+                    + "; start the backend with spring.profiles.active=loadtest");
+        }
+
+        Set<String> words = new LinkedHashSet<>();
+        int page = 0;
+        JsonNode body;
+        do {
+            body = objectMapper.readTree(get("/api/products?size=1000&page=" + page++).body());
+            for (JsonNode product : body.get("content")) {
+                productIds.add(product.get("id").asLong());
+                for (String word : product.get("name").asText().split("\\s+")) {
+                    if (word.length() > 2) {
+                        words.add(word.toLowerCase());
+                    }
+                }
+            }
+        } while (!body.get("last").asBoolean());
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("The catalog at " + options.baseUrl + " is empty");
+        }
+        keywords.addAll(words);
+    }
+
+    int userCount() {
+        return userIds.size();
+    }
+
+    int productCount() {
+        return productIds.size();
+    }
+
+    // Called from the dispatcher thread only, which owns the random
+    Call prepare(Endpoint endpoint, Random random) {
+        switch (endpoint) {
+            case STRIPE_WEBHOOK: {
+                String payload;
+                if (eventCount > 0 && random.nextDouble() < options.webhookRedeliveryRate) {
+                    payload = sentEvents[random.nextInt((int) Math.min(eventCount, REDELIVERY_WINDOW))];
+                } else {
+                    String paymentIntentId = settlementQueue.poll();
+                    payload = stripeEvent("evt_loadtest_" + options.seed + "_" + eventCount,
+                            paymentIntentId != null ? paymentIntentId : "pi_loadtest_" + eventCount);
+                    sentEvents[(int) (eventCount++ % REDELIVERY_WINDOW)] = payload;
+                }
+                return new Call(endpoint, webhook(payload), null);
+            }
+            case CREATE_PAYMENT_INTENT: {
+                OrderRef order = paymentQueue.poll();
+                if (order == null) {
+                    return prepare(Endpoint.PLACE_ORDER, random);
+                }
+                return new Call(endpoint, post("/api/payments/create-payment-intent", order.userId(),
+                        Map.of("orderId", order.orderId())),
+                        body -> settlementQueue.offer(readField(body, "paymentIntentId")));
+            }
+            case PLACE_ORDER: {
+                Long userId = checkoutQueue.poll();
+                if (userId == null) {
+                    return prepare(Endpoint.ADD_TO_CART, random);
+                }
+                usersWithCart.remove(userId);
+                return new Call(endpoint, post("/api/orders", userId, Map.of(
+                        "userId", userId,
+                        "shippingAddress", "1 Load Test Way",
+                        "billingAddress", "1 Load Test Way")),
+                        body -> paymentQueue.offer(new OrderRef(readId(body), userId)));
+            }
+            case ADD_TO_CART: {
+                Long userId = userIds.get(random.nextInt(userIds.size()));
+                Long productId = productIds.get(random.nextInt(productIds.size()));
+                return new Call(endpoint, post("/api/cart/current/items", userId,
+                        Map.of("productId", productId, "quantity", 1 + random.nextInt(3))),
+                        body -> {
+                            if (usersWithCart.add(userId)) {
+                                checkoutQueue.offer(userId);
+                            }
+                        });
+            }
+            case SEARCH: {
+                String keyword = keywords.isEmpty() ? "a" : keywords.get(random.nextInt(keywords.size()));
+                return new Call(endpoint, request("/api/products/search?keyword="
+                        + URLEncoder.encode(keyword, StandardCharsets.UTF_8) + "&size=" + PAGE_SIZE).GET().build(), null);
+            }
+            default: {
+                // Shoppers mostly look at the first few pages
+                int pages = Math.max(1, (productIds.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+                int page = random.nextInt(Math.min(pages, 10));
+                return new Call(endpoint, request("/api/products?size=" + PAGE_SIZE + "&page=" + page).GET().build(), null);
+            }
+        }
+    }
+
+    // Completes with whether the response was a 2xx; transport failures complete exceptionally
+    CompletableFuture<Boolean> send(Call call) {
+        return client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            boolean success = response.statusCode() / 100 == 2;
+            if (success && call.onSuccess() != null) {
+                call.onSuccess().accept(response.body());
+            }
+            return success;
+        });
+    }
+
+    private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest post(String path, Long userId, Map<String, Object> body) {
+        try {
+            return request(path)
+                    .header(USER_HEADER, String.valueOf(userId))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Signed the way Stripe signs deliveries: HMAC-SHA256 of "<timestamp>.<payload>" with the endpoint secret
+    private HttpRequest webhook(String payload) {
+        long timestamp = System.currentTimeMillis() / 1000;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(options.webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return request("/api/payments/webhook")
+                    .header("Stripe-Signature", "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(signature))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(payload))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String stripeEvent(String eventId, String paymentIntentId) {
+        long created = System.currentTimeMillis() / 1000;
+        ObjectNode intent = objectMapper.createObjectNode()
+                .put("id", paymentIntentId)
+                .put("object", "payment_intent")
+                .put("amount", 1000)
+                .put("currency", "usd")
+                .put("status", "succeeded")
+                .put("created", created);
+        ObjectNode event = objectMapper.createObjectNode()
+                .put("id", eventId)
+                .put("object", "event")
+                .put("api_version", options.stripeApiVersion)
+                .put("created", created)
+                .put("type", "payment_intent.succeeded")
+                .put("livemode", false);
+        event.putObject("data").set("object", intent);
+        return event.toString();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                .timeout(Duration.ofMillis(options.timeoutMs));
+    }
+
+    private long readId(byte[] body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable order response", e);
+        }
+    }
+
+    private String readField(byte[] body, String field) {
+        try {
+            return objectMapper.readTree(body).get(field).asText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable payment response", e);
+        }
+    }
+
+    record Call(Endpoint endpoint, HttpRequest request, Consumer<byte[]> onSuccess) {
+    }
+
+    private record OrderRef(long orderId, long userId) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal stand-in for the PaymentIntent endpoints of the Stripe API, so checkouts can be driven without
+// network calls to Stripe. Every response is delayed by a latency that can be changed while running, and a
+// share of them can fail with a 500, to see how the backend behaves when its payment provider is slow or
+// unhealthy. Point the backend at it with app.stripe.api-base.
+final class StripeStub {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile int latencyMs;
+    private final double errorRate;
+    private final AtomicLong sequence = new AtomicLong();
+
+    StripeStub(int port, int latencyMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stripe-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/payment_intents", this::handle);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void setLatencyMs(int latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            int latency = latencyMs;
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                respond(exchange, 500, "{\"error\":{\"type\":\"api_error\",\"message\":\"Simulated failure\"}}");
+                return;
+            }
+
+            // /v1/payment_intents, /v1/payment_intents/{id} or /v1/payment_intents/{id}/confirm
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String id = path.length > 3 ? path[3] : "pi_loadtest_" + sequence.incrementAndGet();
+            String status = path.length > 4 ? "succeeded" : "requires_payment_method";
+            String amount = path.length > 3 ? "0" : form(body).getOrDefault("amount", "0");
+            respond(exchange, 200, "{\"id\":\"" + id + "\",\"object\":\"payment_intent\",\"amount\":" + amount
+                    + ",\"currency\":\"usd\",\"status\":\"" + status + "\",\"client_secret\":\"" + id
+                    + "_secret_loadtest\",\"livemode\":false,\"metadata\":{}}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The SDK sends parameters form-encoded in the request body
+    private static Map<String, String> form(String body) {
+        Map<String, String> values = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Request-Id", "req_loadtest");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}